@@ -1,4 +1,6 @@
 open module io.xpipe.app.localTest {
     requires org.junit.jupiter.api;
     requires io.xpipe.app;
+    requires io.xpipe.beacon;
+    requires io.xpipe.core;
 }
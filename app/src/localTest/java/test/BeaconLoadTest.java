@@ -0,0 +1,108 @@
+package test;
+
+import io.xpipe.app.beacon.AppBeaconServer;
+import io.xpipe.app.storage.DataStorage;
+import io.xpipe.app.test.LocalExtensionTest;
+import io.xpipe.beacon.BeaconClient;
+import io.xpipe.beacon.BeaconClientInformation;
+import io.xpipe.beacon.api.ConnectionQueryExchange;
+import io.xpipe.beacon.api.ShellExecExchange;
+import io.xpipe.beacon.api.ShellStartExchange;
+import io.xpipe.beacon.api.ShellStopExchange;
+import io.xpipe.core.FailableRunnable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class BeaconLoadTest extends LocalExtensionTest {
+
+    private static final int CONCURRENCY = 32;
+    private static final int REQUESTS = 2000;
+    private static final int WARMUP_REQUESTS = 200;
+
+    private static BeaconClient connect() throws Exception {
+        return BeaconClient.establishConnection(
+                AppBeaconServer.get().getPort(),
+                BeaconClientInformation.Api.builder().name("Load test").build());
+    }
+
+    private static void measure(String name, int requests, FailableRunnable<Exception> r) throws Exception {
+        // Warm up the handlers so that the first calls don't distort the results
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            r.run();
+        }
+
+        var durations = Collections.synchronizedList(new ArrayList<Long>());
+        var start = System.nanoTime();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < CONCURRENCY; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < requests / CONCURRENCY; i++) {
+                        var s = System.nanoTime();
+                        r.run();
+                        durations.add(System.nanoTime() - s);
+                    }
+                    return null;
+                }));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+        }
+        var total = System.nanoTime() - start;
+
+        var sorted = new ArrayList<>(durations);
+        Collections.sort(sorted);
+        System.out.println(name + ": " + sorted.size() + " requests with " + CONCURRENCY + " clients, "
+                + (sorted.size() * 1000L / Math.max(1, TimeUnit.NANOSECONDS.toMillis(total))) + " req/s, p50 "
+                + toMillis(percentile(sorted, 0.5)) + "ms, p99 " + toMillis(percentile(sorted, 0.99)) + "ms, max "
+                + toMillis(sorted.getLast()) + "ms");
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        var index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.clamp(index, 0, sorted.size() - 1));
+    }
+
+    private static String toMillis(long nanos) {
+        return "%.2f".formatted(nanos / 1_000_000.0);
+    }
+
+    @org.junit.jupiter.api.Test
+    public void handshake() throws Exception {
+        measure("handshake", REQUESTS, BeaconLoadTest::connect);
+    }
+
+    @org.junit.jupiter.api.Test
+    public void query() throws Exception {
+        var client = connect();
+        measure("connection/query", REQUESTS, () -> client.performRequest(ConnectionQueryExchange.Request.builder()
+                .categoryFilter("**")
+                .connectionFilter("**")
+                .typeFilter("*")
+                .build()));
+    }
+
+    @org.junit.jupiter.api.Test
+    public void shellExec() throws Exception {
+        var client = connect();
+        var local = DataStorage.get().local().getUuid();
+        client.performRequest(
+                ShellStartExchange.Request.builder().connection(local).build());
+        try {
+            // Commands on the same session are serialized, so fewer requests are enough here
+            measure("shell/exec", REQUESTS / 4, () -> client.performRequest(ShellExecExchange.Request.builder()
+                    .connection(local)
+                    .command("echo test")
+                    .build()));
+        } finally {
+            client.performRequest(
+                    ShellStopExchange.Request.builder().connection(local).build());
+        }
+    }
+}
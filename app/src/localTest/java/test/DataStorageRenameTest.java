@@ -0,0 +1,43 @@
+package test;
+
+import io.xpipe.app.ext.LocalStore;
+import io.xpipe.app.storage.DataStorage;
+import io.xpipe.app.storage.DataStorageQuery;
+import io.xpipe.app.storage.DataStoreEntry;
+import io.xpipe.app.test.LocalExtensionTest;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.util.List;
+import java.util.UUID;
+
+public class DataStorageRenameTest extends LocalExtensionTest {
+
+    private static List<DataStoreEntry> query(String name) {
+        return DataStorageQuery.queryEntry("**", "**" + name, "*");
+    }
+
+    @org.junit.jupiter.api.Test
+    public void renameThroughUpdate() {
+        var id = UUID.randomUUID().toString();
+        var oldName = "rename-test-old-" + id;
+        var newName = "rename-test-new-" + id;
+        var entry = DataStoreEntry.createNew(oldName, new LocalStore());
+        DataStorage.get().addStoreEntryIfNotPresent(entry);
+        try {
+            Assertions.assertEquals(List.of(entry), query(oldName));
+            // Fill the store path cache before renaming
+            Assertions.assertEquals(oldName, DataStorage.get().getStorePath(entry).getNames().getLast());
+
+            var renamed =
+                    DataStoreEntry.createNew(entry.getUuid(), entry.getCategoryUuid(), newName, entry.getStore());
+            DataStorage.get().updateEntry(entry, renamed);
+
+            Assertions.assertEquals(List.of(entry), query(newName));
+            Assertions.assertEquals(List.of(), query(oldName));
+            Assertions.assertEquals(newName, DataStorage.get().getStorePath(entry).getNames().getLast());
+        } finally {
+            DataStorage.get().deleteStoreEntry(entry);
+        }
+    }
+}
@@ -1,45 +1,163 @@
 package io.xpipe.app.beacon;
 
 import io.xpipe.app.ext.ShellStore;
+import io.xpipe.app.issue.ErrorEventFactory;
+import io.xpipe.app.issue.TrackEvent;
 import io.xpipe.app.storage.DataStoreEntryRef;
 import io.xpipe.beacon.BeaconClientException;
 
-import lombok.Value;
-
-import java.util.HashSet;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
-@Value
 public class AppBeaconCache {
 
-    Set<BeaconShellSession> shellSessions = new HashSet<>();
+    private static final Duration IMPLICIT_SHELL_SESSION_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private final Map<UUID, BeaconShellSession> shellSessions = new ConcurrentHashMap<>();
+
+    // Sessions that were started on demand, e.g. by MCP tools, are closed again when they are idle
+    // Sessions explicitly started by a client stay open until they are stopped
+    private final Set<UUID> implicitShellSessions = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public Collection<BeaconShellSession> getShellSessions() {
+        return Collections.unmodifiableCollection(shellSessions.values());
+    }
+
+    public int getShellSessionCount() {
+        return shellSessions.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public Optional<BeaconShellSession> getShellSessionIfPresent(UUID uuid) {
+        // Touch the session atomically so it can't be evicted in between
+        var found = shellSessions.computeIfPresent(uuid, (k, session) -> {
+            session.touch();
+            return session;
+        });
+        if (found == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(found);
+    }
 
     public BeaconShellSession getShellSession(UUID uuid) throws BeaconClientException {
-        var found = shellSessions.stream()
-                .filter(beaconShellSession ->
-                        beaconShellSession.getEntry().getUuid().equals(uuid))
-                .findFirst();
+        var found = getShellSessionIfPresent(uuid);
         if (found.isEmpty()) {
             throw new BeaconClientException("No active shell session known for id " + uuid);
         }
         return found.get();
     }
 
-    public BeaconShellSession getOrStart(DataStoreEntryRef<ShellStore> ref) throws Exception {
-        var existing = AppBeaconServer.get().getCache().getShellSessions().stream()
-                .filter(beaconShellSession -> beaconShellSession.getEntry().equals(ref.get()))
-                .findFirst();
-        var control = (existing.isPresent()
-                ? existing.get().getControl()
-                : ref.getStore().standaloneControl().start());
+    public void addShellSession(BeaconShellSession session) {
+        shellSessions.put(session.getEntry().getUuid(), session);
+        implicitShellSessions.remove(session.getEntry().getUuid());
+    }
+
+    public void removeShellSession(BeaconShellSession session) {
+        var uuid = session.getEntry().getUuid();
+        if (shellSessions.remove(uuid) != null) {
+            implicitShellSessions.remove(uuid);
+        }
+    }
+
+    public BeaconShellSession acquireShellSession(DataStoreEntryRef<ShellStore> ref) throws Exception {
+        // The session is marked as in use until it is released, so it can't be evicted while a command is running
+        var uuid = ref.get().getUuid();
+        var existing = shellSessions.computeIfPresent(uuid, (k, session) -> {
+            session.acquire();
+            return session;
+        });
+        if (existing != null) {
+            hits.increment();
+            try {
+                var control = existing.getControl();
+                control.setNonInteractive();
+                control.start();
+            } catch (Exception ex) {
+                existing.release();
+                throw ex;
+            }
+            return existing;
+        }
+
+        misses.increment();
+        var control = ref.getStore().standaloneControl().start();
         control.setNonInteractive();
         control.start();
 
-        if (existing.isEmpty()) {
-            AppBeaconServer.get().getCache().getShellSessions().add(new BeaconShellSession(ref.get(), control));
+        var session = new BeaconShellSession(ref.get(), control);
+        var used = shellSessions.compute(uuid, (k, other) -> {
+            // Another request might have started a session concurrently, so use that one instead
+            var r = other != null ? other : session;
+            r.acquire();
+            return r;
+        });
+        if (used != session) {
+            closeQuietly(session);
+            return used;
+        }
+
+        implicitShellSessions.add(uuid);
+        return session;
+    }
+
+    public void releaseShellSession(BeaconShellSession session) {
+        session.release();
+    }
+
+    void evictIdleShellSessions() {
+        for (UUID uuid : implicitShellSessions) {
+            // Check and remove atomically, so the session can't be used in between
+            var evicted = new AtomicReference<BeaconShellSession>();
+            var remaining = shellSessions.computeIfPresent(uuid, (k, session) -> {
+                if (!session.isIdle(IMPLICIT_SHELL_SESSION_IDLE_TIMEOUT)) {
+                    return session;
+                }
+
+                evicted.set(session);
+                return null;
+            });
+            if (remaining != null) {
+                continue;
+            }
+
+            implicitShellSessions.remove(uuid);
+            var session = evicted.get();
+            if (session != null) {
+                TrackEvent.withTrace("Closing idle shell session")
+                        .tag("entry", session.getEntry().getName())
+                        .handle();
+                closeQuietly(session);
+            }
         }
+    }
 
-        return new BeaconShellSession(ref.get(), control);
+    private void closeQuietly(BeaconShellSession session) {
+        try {
+            session.getControl().close();
+        } catch (Exception ex) {
+            ErrorEventFactory.fromThrowable(ex).omit().expected().handle();
+        }
     }
 }
@@ -0,0 +1,63 @@
+package io.xpipe.app.beacon;
+
+import io.xpipe.app.issue.TrackEvent;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AppBeaconMetrics {
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+
+    public static void record(String name, long startNanos, boolean failed) {
+        var nanos = System.nanoTime() - startNanos;
+        var counter = COUNTERS.computeIfAbsent(name, k -> new Counter());
+        counter.calls.increment();
+        counter.totalNanos.add(nanos);
+        counter.maxNanos.accumulate(nanos);
+        if (failed) {
+            counter.failures.increment();
+        }
+
+        TrackEvent.withTrace("Handled call")
+                .tag("name", name)
+                .tag("duration", Duration.ofNanos(nanos).toMillis() + "ms")
+                .tag("failed", failed)
+                .handle();
+    }
+
+    public static Map<String, Snapshot> getSnapshots() {
+        var map = new TreeMap<String, Snapshot>();
+        COUNTERS.forEach((name, counter) -> {
+            var calls = counter.calls.sum();
+            map.put(
+                    name,
+                    new Snapshot(
+                            calls,
+                            counter.failures.sum(),
+                            Duration.ofNanos(calls > 0 ? counter.totalNanos.sum() / calls : 0),
+                            Duration.ofNanos(counter.maxNanos.get())));
+        });
+        return map;
+    }
+
+    public record Snapshot(long calls, long failures, Duration averageDuration, Duration maxDuration) {
+
+        @Override
+        public String toString() {
+            return calls + " calls, " + failures + " failed, avg " + averageDuration.toMillis() + "ms, max "
+                    + maxDuration.toMillis() + "ms";
+        }
+    }
+
+    private static class Counter {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    }
+}
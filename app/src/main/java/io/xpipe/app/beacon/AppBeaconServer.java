@@ -2,14 +2,18 @@ package io.xpipe.app.beacon;
 
 import io.xpipe.app.beacon.mcp.AppMcpServer;
 import io.xpipe.app.core.AppLocalTemp;
+import io.xpipe.app.core.AppProperties;
 import io.xpipe.app.issue.ErrorEventFactory;
 import io.xpipe.app.issue.TrackEvent;
 import io.xpipe.app.prefs.AppPrefs;
 import io.xpipe.app.util.DocumentationLink;
+import io.xpipe.app.util.GlobalTimer;
+import io.xpipe.beacon.BeaconClientException;
 import io.xpipe.beacon.BeaconConfig;
 import io.xpipe.beacon.BeaconInterface;
 import io.xpipe.core.OsType;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 import lombok.Getter;
@@ -21,22 +25,33 @@ import java.net.Inet4Address;
 import java.net.InetSocketAddress;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AppBeaconServer {
 
+    private static final int DEFAULT_PLATFORM_THREADS = 5;
+    private static final int BACKLOG = 100;
+    private static final Duration SESSION_IDLE_TIMEOUT = Duration.ofHours(24);
+    private static final Duration IDLE_CHECK_INTERVAL = Duration.ofMinutes(5);
+
     private static AppBeaconServer INSTANCE;
 
     @Getter
     private final int port;
 
-    @Getter
-    private final Set<BeaconSession> sessions = new HashSet<>();
+    private final Map<String, BeaconSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, BeaconRequestHandler<?>> handlers = new ConcurrentHashMap<>();
+    private final LongAdder sessionHits = new LongAdder();
+    private final LongAdder sessionMisses = new LongAdder();
 
     @Getter
     private final AppBeaconCache cache = new AppBeaconCache();
@@ -93,7 +108,59 @@ public class AppBeaconServer {
     }
 
     public void addSession(BeaconSession session) {
-        this.sessions.add(session);
+        this.sessions.put(session.getToken(), session);
+    }
+
+    public Optional<BeaconSession> getSession(String token) {
+        var session = sessions.get(token);
+        if (session == null || session.isIdle(SESSION_IDLE_TIMEOUT)) {
+            if (session != null) {
+                sessions.remove(token, session);
+            }
+            sessionMisses.increment();
+            return Optional.empty();
+        }
+
+        sessionHits.increment();
+        session.touch();
+        return Optional.of(session);
+    }
+
+    public BeaconLocalExchange dispatchLocal(String path, JsonNode payload, String authorization)
+            throws BeaconClientException {
+        var handler = handlers.get(path);
+        if (handler == null) {
+            throw new BeaconClientException("No API endpoint found for path " + path);
+        }
+
+        // Requests are handled in-process with the same checks as requests over http
+        var body = payload == null || payload.isNull()
+                ? new byte[0]
+                : payload.isTextual()
+                        ? payload.asText().getBytes(StandardCharsets.UTF_8)
+                        : payload.toString().getBytes(StandardCharsets.UTF_8);
+        var exchange = new BeaconLocalExchange(path, authorization, body);
+        var start = System.nanoTime();
+        handler.handle(exchange, payload);
+        AppBeaconMetrics.record(path, start, exchange.getResponseCode() >= 400);
+        return exchange;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getSessionHits() {
+        return sessionHits.sum();
+    }
+
+    public long getSessionMisses() {
+        return sessionMisses.sum();
+    }
+
+    private void evictIdleSessions() {
+        sessions.values().removeIf(session -> session.isIdle(SESSION_IDLE_TIMEOUT));
+        cache.evictIdleShellSessions();
     }
 
     private void stop() {
@@ -141,22 +208,15 @@ public class AppBeaconServer {
     }
 
     private void start() throws IOException {
-        executor = Executors.newFixedThreadPool(5, r -> {
-            Thread t = Executors.defaultThreadFactory().newThread(r);
-            t.setDaemon(true);
-            t.setName("http handler");
-            t.setUncaughtExceptionHandler((t1, e) -> {
-                ErrorEventFactory.fromThrowable(e).handle();
-            });
-            return t;
-        });
+        executor = createExecutor();
         var external = AppPrefs.get().allowExternalApiRequests().get() || Boolean.getBoolean("XPIPE_API_SERVER");
         var addr = external
                 ? Inet4Address.getByAddress(new byte[] {0, 0, 0, 0})
                 : Inet4Address.getByAddress(new byte[] {0x7f, 0x00, 0x00, 0x01});
-        server = HttpServer.create(new InetSocketAddress(addr, port), 10);
+        server = HttpServer.create(new InetSocketAddress(addr, port), BACKLOG);
         BeaconInterface.getAll().forEach(beaconInterface -> {
             var handler = new BeaconRequestHandler<>(beaconInterface);
+            handlers.put(beaconInterface.getPath(), handler);
             server.createContext(beaconInterface.getPath(), exchange -> {
                 if (!handleCorsHeaders(exchange)) {
                     handler.handle(exchange);
@@ -182,6 +242,38 @@ public class AppBeaconServer {
 
         server.start();
         running = true;
+
+        GlobalTimer.scheduleUntil(IDLE_CHECK_INTERVAL, false, () -> {
+            if (!running) {
+                return true;
+            }
+
+            evictIdleSessions();
+            return false;
+        });
+    }
+
+    private ExecutorService createExecutor() {
+        Thread.UncaughtExceptionHandler handler = (t, e) -> {
+            ErrorEventFactory.fromThrowable(e).handle();
+        };
+
+        // Requests mostly wait on remote shells, so virtual threads allow many concurrent requests by default
+        var threads = AppProperties.get().getBeaconServerThreads();
+        if (threads <= 0 && AppProperties.get().isUseVirtualThreads()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                    .name("http handler ", 0)
+                    .uncaughtExceptionHandler(handler)
+                    .factory());
+        }
+
+        return Executors.newFixedThreadPool(threads > 0 ? threads : DEFAULT_PLATFORM_THREADS, r -> {
+            Thread t = Executors.defaultThreadFactory().newThread(r);
+            t.setDaemon(true);
+            t.setName("http handler");
+            t.setUncaughtExceptionHandler(handler);
+            return t;
+        });
     }
 
     private boolean handleCorsHeaders(HttpExchange exchange) throws IOException {
@@ -8,26 +8,69 @@ import io.xpipe.app.util.ThreadHelper;
 import io.xpipe.beacon.*;
 import io.xpipe.core.JacksonMapper;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import lombok.SneakyThrows;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 public class BeaconRequestHandler<T> implements HttpHandler {
 
+    private static final int MAX_WHITESPACE_PEEK = 8192;
+
     private final BeaconInterface<T> beaconInterface;
 
+    // Reflection metadata does not change, so resolve it once per interface instead of on every request
+    private final boolean rawDataRequestClass;
+    private final boolean emptyRequestClass;
+    private final boolean emptyResponseClass;
+    private final Method requestBuilderMethod;
+    private final Method requestBuildMethod;
+    private final Method rawDataSetterMethod;
+
     public BeaconRequestHandler(BeaconInterface<T> beaconInterface) {
         this.beaconInterface = beaconInterface;
+
+        var requestFields = beaconInterface.getRequestClass().getDeclaredFields();
+        this.rawDataRequestClass = requestFields.length == 1 && requestFields[0].getType().equals(byte[].class);
+        this.emptyRequestClass = requestFields.length == 0;
+        this.emptyResponseClass = beaconInterface.getResponseClass().getDeclaredFields().length == 0;
+
+        Method builder = null;
+        Method build = null;
+        Method rawDataSetter = null;
+        try {
+            builder = beaconInterface.getRequestClass().getDeclaredMethod("builder");
+            builder.setAccessible(true);
+            build = builder.getReturnType().getDeclaredMethod("build");
+            build.setAccessible(true);
+            rawDataSetter = Arrays.stream(builder.getReturnType().getDeclaredMethods())
+                    .filter(method -> method.getParameterCount() == 1
+                            && method.getParameters()[0].getType().equals(byte[].class))
+                    .findFirst()
+                    .orElse(null);
+        } catch (NoSuchMethodException ignored) {
+            // Requests that can't be constructed without a body will fail once they are used
+        }
+        this.requestBuilderMethod = builder;
+        this.requestBuildMethod = build;
+        this.rawDataSetterMethod = rawDataSetter;
     }
 
     @Override
     public void handle(HttpExchange exchange) {
+        handle(exchange, null);
+    }
+
+    public void handle(HttpExchange exchange, JsonNode payload) {
         if (AppOperationMode.isInShutdown() && !beaconInterface.acceptInShutdown()) {
             writeError(exchange, new BeaconClientErrorResponse("Daemon is currently in shutdown"), 400);
             return;
@@ -54,45 +97,34 @@ public class BeaconRequestHandler<T> implements HttpHandler {
             }
 
             var token = auth.replace("Bearer ", "");
-            var session = AppBeaconServer.get().getSessions().stream()
-                    .filter(s -> s.getToken().equals(token))
-                    .findFirst()
-                    .orElse(null);
-            if (session == null) {
+            // Local requests come from the MCP server, which is authenticated with the API key
+            var apiKey = exchange instanceof BeaconLocalExchange
+                    && token.equals(AppPrefs.get().apiKey().get());
+            if (!apiKey && AppBeaconServer.get().getSession(token).isEmpty()) {
                 writeError(exchange, new BeaconClientErrorResponse("Unknown token"), 403);
                 return;
             }
         }
 
-        handleAuthenticatedRequest(exchange);
+        handleAuthenticatedRequest(exchange, payload);
     }
 
-    private void handleAuthenticatedRequest(HttpExchange exchange) {
+    private void handleAuthenticatedRequest(HttpExchange exchange, JsonNode payload) {
         T object;
         Object response;
         try {
             if (beaconInterface.readRawRequestBody()) {
-                object = createDefaultRequest(beaconInterface);
+                object = createDefaultRequest();
+            } else if (payload != null) {
+                object = rawDataRequestClass && payload.isTextual()
+                        ? createRawDataRequest(payload.asText().getBytes(StandardCharsets.UTF_8))
+                        : parseRequest(payload);
             } else {
-                try (InputStream is = exchange.getRequestBody()) {
-                    var read = is.readAllBytes();
-                    var rawDataRequestClass = beaconInterface.getRequestClass().getDeclaredFields().length == 1
-                            && beaconInterface
-                                    .getRequestClass()
-                                    .getDeclaredFields()[0]
-                                    .getType()
-                                    .equals(byte[].class);
-                    if (!new String(read, StandardCharsets.US_ASCII).strip().startsWith("{") && rawDataRequestClass) {
-                        object = createRawDataRequest(beaconInterface, read);
+                try (InputStream is = new BufferedInputStream(exchange.getRequestBody())) {
+                    if (rawDataRequestClass && !startsWithJsonObject(is)) {
+                        object = createRawDataRequest(is.readAllBytes());
                     } else {
-                        var tree = JacksonMapper.getDefault().readTree(read);
-                        TrackEvent.trace("Parsed raw request:\n" + tree.toPrettyString());
-                        var emptyRequestClass = tree.isEmpty()
-                                && beaconInterface.getRequestClass().getDeclaredFields().length == 0;
-                        object = emptyRequestClass
-                                ? createDefaultRequest(beaconInterface)
-                                : JacksonMapper.getDefault().treeToValue(tree, beaconInterface.getRequestClass());
-                        TrackEvent.trace("Parsed request object:\n" + object);
+                        object = parseRequest(JacksonMapper.getDefault().readTree(is));
                     }
                 }
             }
@@ -139,20 +171,29 @@ public class BeaconRequestHandler<T> implements HttpHandler {
             return;
         }
 
+        if (exchange instanceof BeaconLocalExchange local && !emptyResponseClass && response != null) {
+            local.setResponseObject(response);
+            try {
+                local.sendResponseHeaders(200, -1);
+            } catch (IOException ignored) {
+                // The exchange implementation might have already sent a response manually
+            }
+            return;
+        }
+
         try {
-            var emptyResponseClass = beaconInterface.getResponseClass().getDeclaredFields().length == 0;
             if (!emptyResponseClass && response != null) {
                 var redact = AppPrefs.get() == null
                         || !AppPrefs.get().developerMode().getValue()
                         || !AppPrefs.get().developerShowSensitiveCommands().get();
                 var mapper = redact ? JacksonMapper.getRedactedSecretMapper() : JacksonMapper.getUnredactSecretMapper();
-                TrackEvent.trace("Sending response:\n" + response);
-                TrackEvent.trace(
-                        "Sending raw response:\n" + mapper.valueToTree(response).toPrettyString());
+                TrackEvent.trace(() -> "Sending response:\n" + response);
+                TrackEvent.trace(() -> "Sending raw response:\n"
+                        + mapper.valueToTree(response).toPrettyString());
                 var bytes = JacksonMapper.getDefault()
-                        .valueToTree(response)
-                        .toPrettyString()
-                        .getBytes(StandardCharsets.UTF_8);
+                        .writer()
+                        .without(SerializationFeature.INDENT_OUTPUT)
+                        .writeValueAsBytes(response);
                 exchange.sendResponseHeaders(200, bytes.length);
                 try (OutputStream os = exchange.getResponseBody()) {
                     os.write(bytes);
@@ -172,6 +213,15 @@ public class BeaconRequestHandler<T> implements HttpHandler {
         }
     }
 
+    private T parseRequest(JsonNode tree) throws IOException {
+        TrackEvent.trace(() -> "Parsed raw request:\n" + tree.toPrettyString());
+        var object = (tree.isEmpty() || tree.isNull() || tree.isMissingNode()) && emptyRequestClass
+                ? this.<T>createDefaultRequest()
+                : JacksonMapper.getDefault().treeToValue(tree, beaconInterface.getRequestClass());
+        TrackEvent.trace(() -> "Parsed request object:\n" + object);
+        return object;
+    }
+
     private void writeError(HttpExchange exchange, Object errorMessage, int code) {
         try {
             var bytes =
@@ -185,33 +235,46 @@ public class BeaconRequestHandler<T> implements HttpHandler {
         }
     }
 
+    private boolean startsWithJsonObject(InputStream is) throws IOException {
+        // Only peek at the first non-whitespace character and keep the stream intact for the actual parsing
+        is.mark(MAX_WHITESPACE_PEEK);
+        try {
+            for (int i = 0; i < MAX_WHITESPACE_PEEK; i++) {
+                var b = is.read();
+                if (b == -1) {
+                    return false;
+                }
+
+                if (!Character.isWhitespace(b)) {
+                    return b == '{';
+                }
+            }
+            return false;
+        } finally {
+            is.reset();
+        }
+    }
+
     @SneakyThrows
     @SuppressWarnings("unchecked")
-    private <REQ> REQ createDefaultRequest(BeaconInterface<?> beaconInterface) {
-        var c = beaconInterface.getRequestClass().getDeclaredMethod("builder");
-        c.setAccessible(true);
-        var b = c.invoke(null);
-        var m = b.getClass().getDeclaredMethod("build");
-        m.setAccessible(true);
-        return (REQ) beaconInterface.getRequestClass().cast(m.invoke(b));
+    private <REQ> REQ createDefaultRequest() {
+        if (requestBuilderMethod == null || requestBuildMethod == null) {
+            throw new IllegalStateException("Request class " + beaconInterface.getRequestClass() + " has no builder");
+        }
+
+        var b = requestBuilderMethod.invoke(null);
+        return (REQ) beaconInterface.getRequestClass().cast(requestBuildMethod.invoke(b));
     }
 
     @SneakyThrows
     @SuppressWarnings("unchecked")
-    private <REQ> REQ createRawDataRequest(BeaconInterface<?> beaconInterface, byte[] s) {
-        var c = beaconInterface.getRequestClass().getDeclaredMethod("builder");
-        c.setAccessible(true);
-
-        var b = c.invoke(null);
-        var setMethod = Arrays.stream(b.getClass().getDeclaredMethods())
-                .filter(method -> method.getParameterCount() == 1
-                        && method.getParameters()[0].getType().equals(byte[].class))
-                .findFirst()
-                .orElseThrow();
-        setMethod.invoke(b, (Object) s);
-
-        var m = b.getClass().getDeclaredMethod("build");
-        m.setAccessible(true);
-        return (REQ) beaconInterface.getRequestClass().cast(m.invoke(b));
+    private <REQ> REQ createRawDataRequest(byte[] s) {
+        if (requestBuilderMethod == null || requestBuildMethod == null || rawDataSetterMethod == null) {
+            throw new IllegalStateException("Request class " + beaconInterface.getRequestClass() + " has no builder");
+        }
+
+        var b = requestBuilderMethod.invoke(null);
+        rawDataSetterMethod.invoke(b, (Object) s);
+        return (REQ) beaconInterface.getRequestClass().cast(requestBuildMethod.invoke(b));
     }
 }
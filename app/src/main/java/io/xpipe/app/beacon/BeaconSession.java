@@ -2,11 +2,28 @@ package io.xpipe.app.beacon;
 
 import io.xpipe.beacon.BeaconClientInformation;
 
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.Value;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Value
 public class BeaconSession {
 
     BeaconClientInformation clientInformation;
     String token;
+
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    AtomicLong lastUsed = new AtomicLong(System.currentTimeMillis());
+
+    public void touch() {
+        lastUsed.set(System.currentTimeMillis());
+    }
+
+    public boolean isIdle(Duration timeout) {
+        return System.currentTimeMillis() - lastUsed.get() > timeout.toMillis();
+    }
 }
@@ -3,11 +3,44 @@ package io.xpipe.app.beacon;
 import io.xpipe.app.process.ShellControl;
 import io.xpipe.app.storage.DataStoreEntry;
 
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.Value;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Value
 public class BeaconShellSession {
 
     DataStoreEntry entry;
     ShellControl control;
+
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    AtomicLong lastUsed = new AtomicLong(System.currentTimeMillis());
+
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    AtomicInteger users = new AtomicInteger();
+
+    public void touch() {
+        lastUsed.set(System.currentTimeMillis());
+    }
+
+    public void acquire() {
+        users.incrementAndGet();
+        touch();
+    }
+
+    public void release() {
+        touch();
+        users.decrementAndGet();
+    }
+
+    public boolean isIdle(Duration timeout) {
+        // Long-running commands don't touch the session, so it is never idle while in use
+        return users.get() == 0 && System.currentTimeMillis() - lastUsed.get() > timeout.toMillis();
+    }
 }
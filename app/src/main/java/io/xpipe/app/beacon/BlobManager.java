@@ -2,6 +2,8 @@ package io.xpipe.app.beacon;
 
 import io.xpipe.app.core.AppLocalTemp;
 import io.xpipe.app.issue.ErrorEventFactory;
+import io.xpipe.app.issue.TrackEvent;
+import io.xpipe.app.util.GlobalTimer;
 import io.xpipe.beacon.BeaconClientException;
 
 import org.apache.commons.io.FileUtils;
@@ -11,23 +13,30 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BlobManager {
 
     private static final Path TEMP = AppLocalTemp.getLocalTempDataDirectory("blob");
+    private static final long MAX_MEMORY_BYTES = 256L * 1024 * 1024;
+    private static final Duration BLOB_TTL = Duration.ofHours(1);
+    private static final Duration EVICTION_INTERVAL = Duration.ofMinutes(5);
     private static BlobManager INSTANCE;
-    private final Map<UUID, byte[]> memoryBlobs = new ConcurrentHashMap<>();
-    private final Map<UUID, Path> fileBlobs = new ConcurrentHashMap<>();
+    private final Map<UUID, Blob> blobs = new ConcurrentHashMap<>();
+    private final AtomicLong memoryBytes = new AtomicLong();
 
     public static BlobManager get() {
         return INSTANCE;
     }
 
     public static void init() {
-        INSTANCE = new BlobManager();
+        var instance = new BlobManager();
+        INSTANCE = instance;
         try {
             FileUtils.forceMkdir(TEMP.toFile());
             try {
@@ -38,6 +47,15 @@ public class BlobManager {
         } catch (IOException e) {
             ErrorEventFactory.fromThrowable(e).handle();
         }
+
+        GlobalTimer.scheduleUntil(EVICTION_INTERVAL, false, () -> {
+            if (INSTANCE != instance) {
+                return true;
+            }
+
+            instance.evictExpired();
+            return false;
+        });
     }
 
     public static void reset() {
@@ -54,8 +72,15 @@ public class BlobManager {
         return file;
     }
 
-    public void store(UUID uuid, byte[] blob) {
-        memoryBlobs.put(uuid, blob);
+    public void store(UUID uuid, byte[] blob) throws IOException {
+        // Spill to disk instead of keeping an unbounded amount of data on the heap
+        if (memoryBytes.addAndGet(blob.length) > MAX_MEMORY_BYTES) {
+            memoryBytes.addAndGet(-blob.length);
+            store(uuid, new ByteArrayInputStream(blob));
+            return;
+        }
+
+        put(uuid, new Blob(blob, null, blob.length, System.currentTimeMillis()));
     }
 
     public void store(UUID uuid, InputStream blob) throws IOException {
@@ -63,20 +88,71 @@ public class BlobManager {
         try (var fileOut = Files.newOutputStream(file)) {
             blob.transferTo(fileOut);
         }
-        fileBlobs.put(uuid, file);
+        put(uuid, new Blob(null, file, Files.size(file), System.currentTimeMillis()));
     }
 
     public InputStream getBlob(UUID uuid) throws Exception {
-        var memory = memoryBlobs.get(uuid);
-        if (memory != null) {
-            return new ByteArrayInputStream(memory);
+        var blob = getExisting(uuid);
+        if (blob.memory() != null) {
+            return new ByteArrayInputStream(blob.memory());
         }
 
-        var found = fileBlobs.get(uuid);
+        return Files.newInputStream(blob.file());
+    }
+
+    public long getBlobSize(UUID uuid) throws Exception {
+        return getExisting(uuid).size();
+    }
+
+    public Optional<Path> getBlobFile(UUID uuid) throws Exception {
+        return Optional.ofNullable(getExisting(uuid).file());
+    }
+
+    private Blob getExisting(UUID uuid) throws BeaconClientException {
+        var found = blobs.get(uuid);
         if (found == null) {
             throw new BeaconClientException("No saved data known for id " + uuid);
         }
+        return found;
+    }
 
-        return Files.newInputStream(found);
+    private void put(UUID uuid, Blob blob) {
+        var previous = blobs.put(uuid, blob);
+        if (previous != null) {
+            release(previous);
+        }
     }
+
+    private void evictExpired() {
+        var now = System.currentTimeMillis();
+        for (Map.Entry<UUID, Blob> entry : blobs.entrySet()) {
+            if (now - entry.getValue().created() < BLOB_TTL.toMillis()) {
+                continue;
+            }
+
+            if (blobs.remove(entry.getKey(), entry.getValue())) {
+                TrackEvent.withTrace("Evicting expired blob")
+                        .tag("id", entry.getKey())
+                        .tag("size", entry.getValue().size())
+                        .handle();
+                release(entry.getValue());
+            }
+        }
+    }
+
+    private void release(Blob blob) {
+        if (blob.memory() != null) {
+            memoryBytes.addAndGet(-blob.memory().length);
+        }
+
+        if (blob.file() != null) {
+            try {
+                Files.deleteIfExists(blob.file());
+            } catch (IOException e) {
+                ErrorEventFactory.fromThrowable(e).omit().expected().handle();
+            }
+        }
+    }
+
+    private record Blob(byte[] memory, Path file, long size, long created) {}
 }
@@ -1,5 +1,6 @@
 package io.xpipe.app.beacon.impl;
 
+import io.xpipe.app.beacon.AppBeaconServer;
 import io.xpipe.app.core.mode.AppOperationMode;
 import io.xpipe.beacon.api.DaemonStatusExchange;
 
@@ -21,7 +22,20 @@ public class DaemonStatusExchangeImpl extends DaemonStatusExchange {
             mode = AppOperationMode.get().getId();
         }
 
-        return Response.builder().mode(mode).build();
+        var server = AppBeaconServer.get();
+        if (server == null) {
+            return Response.builder().mode(mode).build();
+        }
+
+        return Response.builder()
+                .mode(mode)
+                .sessionCount(server.getSessionCount())
+                .sessionHits(server.getSessionHits())
+                .sessionMisses(server.getSessionMisses())
+                .shellSessionCount(server.getCache().getShellSessionCount())
+                .shellSessionHits(server.getCache().getHits())
+                .shellSessionMisses(server.getCache().getMisses())
+                .build();
     }
 
     @Override
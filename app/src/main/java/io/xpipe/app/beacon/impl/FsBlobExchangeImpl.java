@@ -1,6 +1,7 @@
 package io.xpipe.app.beacon.impl;
 
 import io.xpipe.app.beacon.BlobManager;
+import io.xpipe.beacon.BeaconClientException;
 import io.xpipe.beacon.api.FsBlobExchange;
 
 import com.sun.net.httpserver.HttpExchange;
@@ -10,13 +11,23 @@ import java.util.UUID;
 
 public class FsBlobExchangeImpl extends FsBlobExchange {
 
+    private static final long MAX_MEMORY_BLOB_SIZE = 16_000_000;
+
     @Override
     @SneakyThrows
     public Object handle(HttpExchange exchange, Request msg) {
         var id = UUID.randomUUID();
 
-        var size = exchange.getRequestBody().available();
-        if (size > 100_000_000) {
+        // The available bytes don't say anything about the total size, so rely on the declared length
+        // Chunked uploads without a length are always streamed to disk
+        var length = exchange.getRequestHeaders().getFirst("Content-Length");
+        long size;
+        try {
+            size = length != null ? Long.parseLong(length.strip()) : -1;
+        } catch (NumberFormatException e) {
+            throw new BeaconClientException("Invalid Content-Length header: " + length);
+        }
+        if (size < 0 || size > MAX_MEMORY_BLOB_SIZE) {
             BlobManager.get().store(id, exchange.getRequestBody());
         } else {
             BlobManager.get().store(id, exchange.getRequestBody().readAllBytes());
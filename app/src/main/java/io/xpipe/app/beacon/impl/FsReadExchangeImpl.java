@@ -1,21 +1,32 @@
 package io.xpipe.app.beacon.impl;
 
 import io.xpipe.app.beacon.AppBeaconServer;
-import io.xpipe.app.beacon.BlobManager;
 import io.xpipe.app.ext.ConnectionFileSystem;
+import io.xpipe.app.process.ShellControl;
 import io.xpipe.app.util.FixedSizeInputStream;
 import io.xpipe.beacon.BeaconClientException;
 import io.xpipe.beacon.api.FsReadExchange;
+import io.xpipe.core.FilePath;
 
 import com.sun.net.httpserver.HttpExchange;
 import lombok.SneakyThrows;
 
 import java.io.BufferedInputStream;
 import java.io.OutputStream;
-import java.nio.file.Files;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 public class FsReadExchangeImpl extends FsReadExchange {
 
+    private static final long MAX_BUFFERED_SIZE = 1_000_000;
+
+    static boolean canAccessLocally(ShellControl sc, FilePath path) {
+        // Only the plain local shell has the same permissions and working directory as this process
+        // Elevated or otherwise nested local shells have to go through the shell
+        return sc.isLocal() && sc.getParentControl().isEmpty() && path.isAbsolute();
+    }
+
     @Override
     @SneakyThrows
     public Object handle(HttpExchange exchange, Request msg) {
@@ -27,22 +38,35 @@ public class FsReadExchangeImpl extends FsReadExchange {
         }
 
         var size = fs.getFileSize(msg.getPath());
-        if (size > 100_000_000) {
-            var file = BlobManager.get().newBlobFile();
+        if (canAccessLocally(shell.getControl(), msg.getPath())) {
+            try (var channel = FileChannel.open(msg.getPath().asLocalPath(), StandardOpenOption.READ)) {
+                exchange.sendResponseHeaders(200, size);
+                try (var out = exchange.getResponseBody()) {
+                    var target = Channels.newChannel(out);
+                    long position = 0;
+                    while (position < size) {
+                        var transferred = channel.transferTo(position, size - position, target);
+                        if (transferred <= 0) {
+                            // The file was truncated in the meantime
+                            break;
+                        }
+                        position += transferred;
+                    }
+                }
+            }
+        } else if (size > MAX_BUFFERED_SIZE) {
+            // Stream large files directly to the client instead of buffering them
+            // If the remote read fails midway, the client will receive a truncated response
             try (var in = fs.openInput(msg.getPath())) {
-                var fixedIn = new FixedSizeInputStream(new BufferedInputStream(in), size);
-                try (var fileOut = Files.newOutputStream(file)) {
-                    fixedIn.transferTo(fileOut);
+                exchange.sendResponseHeaders(200, size);
+                try (var out = exchange.getResponseBody()) {
+                    var fixedIn = new FixedSizeInputStream(new BufferedInputStream(in), size);
+                    fixedIn.transferTo(out);
                 }
                 in.transferTo(OutputStream.nullOutputStream());
             }
-
-            exchange.sendResponseHeaders(200, size);
-            try (var fileIn = Files.newInputStream(file);
-                    var out = exchange.getResponseBody()) {
-                fileIn.transferTo(out);
-            }
         } else {
+            // Small files are read fully first to still be able to send a proper error response
             byte[] bytes;
             try (var in = fs.openInput(msg.getPath())) {
                 var fixedIn = new FixedSizeInputStream(new BufferedInputStream(in), size);
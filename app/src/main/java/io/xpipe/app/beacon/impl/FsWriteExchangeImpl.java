@@ -8,15 +8,40 @@ import io.xpipe.beacon.api.FsWriteExchange;
 import com.sun.net.httpserver.HttpExchange;
 import lombok.SneakyThrows;
 
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
 public class FsWriteExchangeImpl extends FsWriteExchange {
 
     @Override
     @SneakyThrows
     public Object handle(HttpExchange exchange, Request msg) {
         var shell = AppBeaconServer.get().getCache().getShellSession(msg.getConnection());
+        var size = BlobManager.get().getBlobSize(msg.getBlob());
+        var blobFile = BlobManager.get().getBlobFile(msg.getBlob());
+        if (FsReadExchangeImpl.canAccessLocally(shell.getControl(), msg.getPath()) && blobFile.isPresent()) {
+            try (var src = FileChannel.open(blobFile.get(), StandardOpenOption.READ);
+                    var dst = FileChannel.open(
+                            msg.getPath().asLocalPath(),
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                while (position < size) {
+                    var transferred = src.transferTo(position, size - position, dst);
+                    if (transferred <= 0) {
+                        // The file was truncated in the meantime
+                        break;
+                    }
+                    position += transferred;
+                }
+            }
+            return Response.builder().build();
+        }
+
         var fs = new ConnectionFileSystem(shell.getControl());
         try (var in = BlobManager.get().getBlob(msg.getBlob());
-                var os = fs.openOutput(msg.getPath(), in.available())) {
+                var os = fs.openOutput(msg.getPath(), size)) {
             in.transferTo(os);
         }
         return Response.builder().build();
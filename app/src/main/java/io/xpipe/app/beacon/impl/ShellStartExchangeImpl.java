@@ -23,9 +23,7 @@ public class ShellStartExchangeImpl extends ShellStartExchange {
             throw new BeaconClientException("Not a shell connection");
         }
 
-        var existing = AppBeaconServer.get().getCache().getShellSessions().stream()
-                .filter(beaconShellSession -> beaconShellSession.getEntry().equals(e))
-                .findFirst();
+        var existing = AppBeaconServer.get().getCache().getShellSessionIfPresent(e.getUuid());
         var control = (existing.isPresent()
                 ? existing.get().getControl()
                 : s.standaloneControl().start());
@@ -38,9 +36,8 @@ public class ShellStartExchangeImpl extends ShellStartExchange {
             d.throwIfUnsupported();
         }
 
-        if (existing.isEmpty()) {
-            AppBeaconServer.get().getCache().getShellSessions().add(new BeaconShellSession(e, control));
-        }
+        // Also register sessions that were previously started on demand so that they are kept open
+        AppBeaconServer.get().getCache().addShellSession(existing.orElseGet(() -> new BeaconShellSession(e, control)));
         var ttyState =
                 JacksonMapper.getDefault().valueToTree(control.getTtyState()).asText();
         return Response.builder()
@@ -1,5 +1,8 @@
 package io.xpipe.app.beacon.mcp;
 
+import io.xpipe.app.beacon.AppBeaconMetrics;
+import io.xpipe.app.beacon.AppBeaconServer;
+import io.xpipe.app.beacon.BeaconShellSession;
 import io.xpipe.app.ext.ShellStore;
 import io.xpipe.app.issue.ErrorEventFactory;
 import io.xpipe.app.process.ShellControl;
@@ -13,6 +16,8 @@ import io.modelcontextprotocol.server.McpSyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema;
 import lombok.SneakyThrows;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiFunction;
 
@@ -28,8 +33,12 @@ public interface McpToolHandler
     default McpSchema.CallToolResult apply(
             McpSyncServerExchange mcpSyncServerExchange, McpSchema.CallToolRequest callToolRequest) {
         var req = new ToolRequest(mcpSyncServerExchange, callToolRequest);
+        var start = System.nanoTime();
+        var failed = true;
         try {
-            return handle(req);
+            var result = handle(req);
+            failed = result.isError() != null && result.isError();
+            return result;
         } catch (BeaconClientException e) {
             ErrorEventFactory.fromThrowable(e).expected().omit().handle();
             return McpSchema.CallToolResult.builder()
@@ -48,6 +57,9 @@ public interface McpToolHandler
                                     : e.getClass().getSimpleName())
                     .isError(true)
                     .build();
+        } finally {
+            req.releaseShellSessions();
+            AppBeaconMetrics.record("mcp/" + callToolRequest.name(), start, failed);
         }
     }
 
@@ -57,6 +69,7 @@ public interface McpToolHandler
 
         protected final McpSyncServerExchange exchange;
         protected final McpSchema.CallToolRequest request;
+        private final List<BeaconShellSession> shellSessions = new ArrayList<>();
 
         public ToolRequest(McpSyncServerExchange exchange, McpSchema.CallToolRequest request) {
             this.exchange = exchange;
@@ -67,6 +80,18 @@ public interface McpToolHandler
             return request;
         }
 
+        public BeaconShellSession getShellSession(DataStoreEntryRef<ShellStore> ref) throws Exception {
+            // The session stays in use until the tool call has finished
+            var session = AppBeaconServer.get().getCache().acquireShellSession(ref);
+            shellSessions.add(session);
+            return session;
+        }
+
+        private void releaseShellSessions() {
+            shellSessions.forEach(session -> AppBeaconServer.get().getCache().releaseShellSession(session));
+            shellSessions.clear();
+        }
+
         public Optional<String> getOptionalStringArgument(String key) {
             var o = request.arguments().get(key);
             if (o == null) {
@@ -106,6 +131,26 @@ public interface McpToolHandler
             return Optional.of(b);
         }
 
+        public Optional<Integer> getOptionalIntegerArgument(String key) throws BeaconClientException {
+            var o = request.arguments().get(key);
+            if (o == null) {
+                return Optional.empty();
+            }
+
+            if (o instanceof Number n) {
+                return Optional.of(n.intValue());
+            }
+
+            if (o instanceof String s && !s.isBlank()) {
+                try {
+                    return Optional.of(Integer.parseInt(s.strip()));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+
+            throw new BeaconClientException("Invalid argument for key " + key);
+        }
+
         public boolean getBooleanArgument(String key) throws BeaconClientException {
             var o = request.arguments().get(key);
             if (o == null) {
@@ -13,9 +13,7 @@ import io.xpipe.app.storage.DataStorage;
 import io.xpipe.app.storage.DataStorageQuery;
 import io.xpipe.app.terminal.TerminalLaunch;
 import io.xpipe.app.util.CommandDialog;
-import io.xpipe.app.util.HttpHelper;
 import io.xpipe.beacon.BeaconClientException;
-import io.xpipe.beacon.BeaconInterface;
 import io.xpipe.core.FilePath;
 import io.xpipe.core.JacksonMapper;
 
@@ -29,17 +27,29 @@ import lombok.Value;
 import lombok.extern.jackson.Jacksonized;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 public final class McpTools {
 
+    private static final int DEFAULT_FILE_PAGE_SIZE = 200;
+    private static final int MAX_FILE_PAGE_SIZE = 1000;
+    private static final int MAX_FILE_RESULTS = 100000;
+    private static final int MAX_FILE_LISTINGS = 16;
+    private static final Map<String, FileListing> FILE_LISTINGS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileListing> eldest) {
+            return size() > MAX_FILE_LISTINGS;
+        }
+    };
+
     public static McpServerFeatures.SyncToolSpecification help() throws IOException {
         var tool = McpSchemaFiles.loadTool("help.json");
         return McpServerFeatures.SyncToolSpecification.builder()
@@ -79,32 +89,16 @@ public final class McpTools {
                         throw new BeaconClientException("HTTP API is not enabled");
                     }
 
-                    var i = BeaconInterface.byPath(path);
-                    if (i.isEmpty()) {
-                        throw new BeaconClientException("No API endpoint found for path " + path);
-                    }
-
-                    var httpReq = HttpRequest.newBuilder()
-                            .uri(URI.create(
-                                    "http://localhost:" + AppBeaconServer.get().getPort() + path))
-                            .header(
-                                    "Authorization",
-                                    "Bearer " + AppPrefs.get().apiKey().get())
-                            .POST(HttpRequest.BodyPublishers.ofString(payloadJson.toPrettyString()))
-                            .build();
-                    var httpRes = HttpHelper.client().send(httpReq, HttpResponse.BodyHandlers.ofString());
-
-                    var resJson = JacksonMapper.getDefault().readTree(httpRes.body());
-                    if (httpRes.statusCode() >= 400) {
-                        return McpSchema.CallToolResult.builder()
-                                .addTextContent(resJson.toPrettyString())
-                                .isError(true)
-                                .build();
+                    var exchange = AppBeaconServer.get()
+                            .dispatchLocal(path, payloadJson, AppPrefs.get().apiKey().get());
+                    var text = exchange.getResponseObject() != null
+                            ? JacksonMapper.getDefault().writeValueAsString(exchange.getResponseObject())
+                            : exchange.getResponseString();
+                    var builder = McpSchema.CallToolResult.builder().addTextContent(text);
+                    if (exchange.getResponseCode() >= 400) {
+                        builder.isError(true);
                     }
-
-                    return McpSchema.CallToolResult.builder()
-                            .addTextContent(resJson.toPrettyString())
-                            .build();
+                    return builder.build();
                 }))
                 .build();
     }
@@ -178,7 +172,7 @@ public final class McpTools {
                 .callHandler(McpToolHandler.of((req) -> {
                     var system = req.getStringArgument("system");
                     var shellStore = req.getShellStoreRef(system, false);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
                     var path = req.getFilePath(shellSession.getControl(), "path");
                     var fs = new ConnectionFileSystem(shellSession.getControl());
 
@@ -202,10 +196,15 @@ public final class McpTools {
         return McpServerFeatures.SyncToolSpecification.builder()
                 .tool(tool)
                 .callHandler(McpToolHandler.of((req) -> {
+                    // Following pages don't require any access to the system
+                    var cursorPage = getCursorPage(req);
+                    if (cursorPage.isPresent()) {
+                        return cursorPage.get();
+                    }
+
                     var system = req.getStringArgument("system");
-                    var recursive = req.getOptionalBooleanArgument("recursive").orElse(false);
                     var shellStore = req.getShellStoreRef(system, false);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
                     var fs = new ConnectionFileSystem(shellSession.getControl());
                     var path = req.getFilePath(shellSession.getControl(), "path");
 
@@ -213,14 +212,7 @@ public final class McpTools {
                         throw new BeaconClientException("Directory " + path + " does not exist");
                     }
 
-                    try (var stream = recursive ? fs.listFilesRecursively(fs, path).stream() : fs.listFiles(fs, path)) {
-                        var list = stream.toList();
-                        var builder = McpSchema.CallToolResult.builder();
-                        for (FileEntry e : list) {
-                            builder.addTextContent(e.getPath().toString());
-                        }
-                        return builder.build();
-                    }
+                    return listFilePage(req, fs, path, null);
                 }))
                 .build();
     }
@@ -230,10 +222,16 @@ public final class McpTools {
         return McpServerFeatures.SyncToolSpecification.builder()
                 .tool(tool)
                 .callHandler(McpToolHandler.of((req) -> {
+                    // Following pages don't require any access to the system
+                    var cursorPage = getCursorPage(req);
+                    if (cursorPage.isPresent()) {
+                        return cursorPage.get();
+                    }
+
                     var system = req.getStringArgument("system");
                     var pattern = req.getStringArgument("name");
                     var shellStore = req.getShellStoreRef(system, false);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
                     var path = req.getFilePath(shellSession.getControl(), "path");
                     var fs = new ConnectionFileSystem(shellSession.getControl());
 
@@ -241,23 +239,109 @@ public final class McpTools {
                         throw new BeaconClientException("Directory " + path + " does not exist");
                     }
 
-                    var regex = Pattern.compile(DataStorageQuery.toRegex(pattern));
-                    try (var stream = fs.listFiles(fs, path)) {
-                        var list = stream.toList();
-                        var builder = McpSchema.CallToolResult.builder();
-                        list.stream()
-                                .filter(fileEntry -> regex.matcher(
-                                                fileEntry.getPath().toString())
-                                        .find())
-                                .forEach(fileEntry -> {
-                                    builder.addTextContent(fileEntry.getPath().toString());
-                                });
-                        return builder.build();
+                    // The find name matching only supports simple wildcards, so don't allow anything else
+                    if (pattern.contains("**") || pattern.contains("{") || pattern.contains("}")) {
+                        throw new BeaconClientException(
+                                "Unsupported pattern " + pattern + ", only the wildcards *, ? and [] are supported");
                     }
+
+                    // Match any file name containing the pattern
+                    var glob = (pattern.startsWith("*") ? "" : "*") + pattern + (pattern.endsWith("*") ? "" : "*");
+                    return listFilePage(req, fs, path, glob);
                 }))
                 .build();
     }
 
+    private static int getFilePageSize(McpToolHandler.ToolRequest req) throws BeaconClientException {
+        return Math.clamp(
+                req.getOptionalIntegerArgument("pageSize").orElse(DEFAULT_FILE_PAGE_SIZE), 1, MAX_FILE_PAGE_SIZE);
+    }
+
+    private static Optional<McpSchema.CallToolResult> getCursorPage(McpToolHandler.ToolRequest req)
+            throws BeaconClientException {
+        var cursor = req.getOptionalStringArgument("cursor");
+        if (cursor.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(getFilePage(cursor.get(), getFilePageSize(req)));
+    }
+
+    private static McpSchema.CallToolResult listFilePage(
+            McpToolHandler.ToolRequest req, FileSystem fs, FilePath path, String nameGlob) throws Exception {
+        var pageSize = getFilePageSize(req);
+
+        var recursive = req.getOptionalBooleanArgument("recursive").orElse(false);
+        var maxDepth = recursive
+                ? req.getOptionalIntegerArgument("maxDepth").orElse(Integer.MAX_VALUE)
+                : 1;
+        var maxResults = Math.clamp(
+                req.getOptionalIntegerArgument("maxResults").orElse(MAX_FILE_RESULTS), 1, MAX_FILE_RESULTS);
+
+        // Traverse only once and keep the results for the following pages
+        // The traversal is stopped as soon as the result limit is reached
+        var results = new ArrayList<String>();
+        var limited = new AtomicBoolean();
+        fs.traverseFilesRecursively(fs, path, maxDepth, nameGlob, entry -> {
+            if (results.size() >= maxResults) {
+                limited.set(true);
+                return false;
+            }
+
+            results.add(entry.getPath().toString());
+            return true;
+        });
+
+        var id = UUID.randomUUID().toString();
+        var listing = new FileListing(List.copyOf(results), limited.get());
+        synchronized (FILE_LISTINGS) {
+            FILE_LISTINGS.put(id, listing);
+        }
+        return createFilePage(id, listing, 0, pageSize);
+    }
+
+    private static McpSchema.CallToolResult getFilePage(String cursor, int pageSize) throws BeaconClientException {
+        var split = cursor.split(":", 2);
+        FileListing listing;
+        synchronized (FILE_LISTINGS) {
+            listing = split.length == 2 ? FILE_LISTINGS.get(split[0]) : null;
+        }
+        if (listing == null) {
+            throw new BeaconClientException("Invalid or expired cursor, please list the files again");
+        }
+
+        int offset;
+        try {
+            offset = Integer.parseInt(split[1]);
+        } catch (NumberFormatException e) {
+            throw new BeaconClientException("Invalid cursor");
+        }
+        if (offset < 0 || offset > listing.paths().size()) {
+            throw new BeaconClientException("Invalid cursor");
+        }
+
+        return createFilePage(split[0], listing, offset, pageSize);
+    }
+
+    private static McpSchema.CallToolResult createFilePage(String id, FileListing listing, int offset, int pageSize) {
+        var end = Math.min(listing.paths().size(), offset + pageSize);
+        var text = new StringBuilder(String.join("\n", listing.paths().subList(offset, end)));
+        if (end < listing.paths().size()) {
+            text.append("\n\nMore results are available. Pass the cursor \"")
+                    .append(id)
+                    .append(":")
+                    .append(end)
+                    .append("\" to get the next page");
+        } else if (listing.limited()) {
+            text.append("\n\nThe maximum number of results was reached");
+        }
+        return McpSchema.CallToolResult.builder()
+                .addTextContent(text.toString())
+                .build();
+    }
+
+    private record FileListing(List<String> paths, boolean limited) {}
+
     public static McpServerFeatures.SyncToolSpecification getFileInfo() throws IOException {
         var tool = McpSchemaFiles.loadTool("get_file_info.json");
         return McpServerFeatures.SyncToolSpecification.builder()
@@ -265,7 +349,7 @@ public final class McpTools {
                 .callHandler(McpToolHandler.of((req) -> {
                     var system = req.getStringArgument("system");
                     var shellStore = req.getShellStoreRef(system, false);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
                     var path = req.getFilePath(shellSession.getControl(), "path");
                     var fs = new ConnectionFileSystem(shellSession.getControl());
 
@@ -307,7 +391,7 @@ public final class McpTools {
                 .callHandler(McpToolHandler.of((req) -> {
                     var system = req.getStringArgument("system");
                     var shellStore = req.getShellStoreRef(system, true);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
                     var path = req.getFilePath(shellSession.getControl(), "path");
                     var fs = new ConnectionFileSystem(shellSession.getControl());
 
@@ -340,7 +424,7 @@ public final class McpTools {
                     var system = req.getStringArgument("system");
                     var content = req.getStringArgument("content");
                     var shellStore = req.getShellStoreRef(system, true);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
                     var path = req.getFilePath(shellSession.getControl(), "path");
                     var fs = new ConnectionFileSystem(shellSession.getControl());
 
@@ -363,7 +447,7 @@ public final class McpTools {
                 .callHandler(McpToolHandler.of((req) -> {
                     var system = req.getStringArgument("system");
                     var shellStore = req.getShellStoreRef(system, true);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
                     var path = req.getFilePath(shellSession.getControl(), "path");
                     var fs = new ConnectionFileSystem(shellSession.getControl());
 
@@ -388,7 +472,7 @@ public final class McpTools {
                     var command = req.getStringArgument("command");
                     var system = req.getStringArgument("system");
                     var shellStore = req.getShellStoreRef(system, true);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
 
                     var r = ProcessControlProvider.get().executeMcpCommand(shellSession.getControl(), command);
                     return r;
@@ -406,7 +490,7 @@ public final class McpTools {
                     var arguments = req.getStringArgument("arguments");
 
                     var shellStore = req.getShellStoreRef(system, true);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
                     var directory = req.getFilePath(shellSession.getControl(), "directory");
 
                     var clazz = Class.forName(
@@ -444,7 +528,7 @@ public final class McpTools {
                     var system = req.getStringArgument("system");
                     var directory = req.getOptionalStringArgument("directory");
                     var shellStore = req.getShellStoreRef(system, true);
-                    var shellSession = AppBeaconServer.get().getCache().getOrStart(shellStore);
+                    var shellSession = req.getShellSession(shellStore);
 
                     TerminalLaunch.builder()
                             .entry(shellStore.get())
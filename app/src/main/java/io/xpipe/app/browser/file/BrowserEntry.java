@@ -7,6 +7,8 @@ import io.xpipe.app.ext.FileKind;
 
 import lombok.Getter;
 
+import java.util.Locale;
+
 @Getter
 public class BrowserEntry {
 
@@ -14,10 +16,14 @@ public class BrowserEntry {
     private final FileEntry rawFileEntry;
     private final BrowserIconFileType fileType;
     private final BrowserIconDirectoryType directoryType;
+    private final String lowerCaseFileName;
 
     public BrowserEntry(FileEntry rawFileEntry, BrowserFileListModel model) {
         this.rawFileEntry = rawFileEntry;
         this.model = model;
+        this.lowerCaseFileName = rawFileEntry != null
+                ? rawFileEntry.getPath().getFileName().toLowerCase(Locale.ROOT)
+                : null;
         this.fileType = fileType(rawFileEntry);
         this.directoryType = directoryType(rawFileEntry);
     }
@@ -1,21 +1,26 @@
 package io.xpipe.app.browser.file;
 
 import io.xpipe.app.browser.action.impl.MoveFileActionProvider;
+import io.xpipe.app.core.AppProperties;
 import io.xpipe.app.ext.FileEntry;
 import io.xpipe.app.ext.FileKind;
 import io.xpipe.app.issue.ErrorEventFactory;
 import io.xpipe.app.prefs.AppPrefs;
 import io.xpipe.core.FilePath;
 
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.Property;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 @Getter
@@ -24,17 +29,39 @@ public final class BrowserFileListModel {
     static final Comparator<BrowserEntry> FILE_TYPE_COMPARATOR =
             Comparator.comparing(path -> path.getRawFileEntry().resolved().getKind() != FileKind.DIRECTORY);
 
+    private static final int FIRST_CHUNK_SIZE = 250;
+    private static final int BATCH_SIZE = 5000;
+    private static final int DEFAULT_LIMIT = 50000;
+
     private final BrowserFileSystemTabModel fileSystemModel;
     private final Property<Comparator<BrowserEntry>> comparatorProperty =
             new SimpleObjectProperty<>(FILE_TYPE_COMPARATOR);
     private final Property<List<BrowserEntry>> all = new SimpleObjectProperty<>(new ArrayList<>());
     private final Property<List<BrowserEntry>> shown = new SimpleObjectProperty<>(new ArrayList<>());
     private final ObservableList<BrowserEntry> selection = FXCollections.observableArrayList();
+    private final IntegerProperty remaining = new SimpleIntegerProperty();
 
     private final Property<BrowserEntry> draggedOverDirectory = new SimpleObjectProperty<>();
     private final Property<Boolean> draggedOverEmpty = new SimpleBooleanProperty();
     private final Property<BrowserEntry> editing = new SimpleObjectProperty<>();
 
+    // All entries in the current order, so that new entries can be merged in
+    @Getter(AccessLevel.NONE)
+    private List<BrowserEntry> sorted = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    private Comparator<BrowserEntry> sortedComparator = FILE_TYPE_COMPARATOR;
+
+    @Getter(AccessLevel.NONE)
+    private String shownFilter;
+
+    // Entries over the limit that are not shown yet
+    @Getter(AccessLevel.NONE)
+    private List<FileEntry> pending = List.of();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong loadGeneration = new AtomicLong();
+
     public BrowserFileListModel(BrowserFileSystemTabModel fileSystemModel) {
         this.fileSystemModel = fileSystemModel;
 
@@ -43,17 +70,156 @@ public final class BrowserFileListModel {
         });
     }
 
-    public void setAll(Stream<FileEntry> newFiles) {
+    private static int getLimit() {
+        var limit = AppProperties.get().getBrowserFileListLimit();
+        return limit > 0 ? limit : DEFAULT_LIMIT;
+    }
+
+    private static List<BrowserEntry> merge(
+            List<BrowserEntry> first, List<BrowserEntry> second, Comparator<BrowserEntry> comparator) {
+        var merged = new ArrayList<BrowserEntry>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+        while (i < first.size() && j < second.size()) {
+            if (comparator.compare(second.get(j), first.get(i)) < 0) {
+                merged.add(second.get(j++));
+            } else {
+                merged.add(first.get(i++));
+            }
+        }
+        merged.addAll(first.subList(i, first.size()));
+        merged.addAll(second.subList(j, second.size()));
+        return merged;
+    }
+
+    private static List<BrowserEntry> filter(List<BrowserEntry> entries, String filter) {
+        if (filter == null) {
+            return entries;
+        }
+
+        return entries.stream()
+                .filter(entry -> entry.getLowerCaseFileName().contains(filter))
+                .toList();
+    }
+
+    public boolean setAll(Stream<FileEntry> newFiles) {
+        // Show the first entries as soon as possible and append the rest in batches
+        var generation = loadGeneration.incrementAndGet();
+        var limit = getLimit();
         try (var s = newFiles) {
-            var l = s.filter(entry -> entry != null)
-                    .map(entry -> new BrowserEntry(entry, this))
-                    .toList();
-            all.setValue(l);
+            var it = s.iterator();
+            var batch = new ArrayList<BrowserEntry>();
+            var overLimit = new ArrayList<FileEntry>();
+            var replace = true;
+            var count = 0;
+            while (it.hasNext()) {
+                var entry = it.next();
+                if (entry == null) {
+                    continue;
+                }
+
+                // The remaining output still has to be read to free up the shell
+                if (count >= limit) {
+                    overLimit.add(entry);
+                    continue;
+                }
+
+                batch.add(new BrowserEntry(entry, this));
+                count++;
+                if (batch.size() >= (replace ? FIRST_CHUNK_SIZE : BATCH_SIZE)) {
+                    if (!append(generation, batch, replace)) {
+                        return false;
+                    }
+
+                    replace = false;
+                    batch = new ArrayList<>();
+                }
+            }
+
+            if (!append(generation, batch, replace)) {
+                return false;
+            }
+
+            setPending(generation, overLimit);
+            return true;
+        }
+    }
+
+    public void loadMore() {
+        List<FileEntry> current;
+        List<FileEntry> next;
+        long generation;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            current = pending;
+            next = pending.subList(0, Math.min(getLimit(), pending.size()));
+            generation = loadGeneration.get();
+        }
+
+        var batch = new ArrayList<BrowserEntry>(next.size());
+        for (FileEntry entry : next) {
+            batch.add(new BrowserEntry(entry, this));
+        }
+
+        synchronized (this) {
+            // Another load might have happened in the meantime
+            if (generation != loadGeneration.get() || current != pending) {
+                return;
+            }
+
+            if (append(generation, batch, false)) {
+                setPending(generation, current.subList(next.size(), current.size()));
+            }
+        }
+    }
+
+    private synchronized boolean append(long generation, List<BrowserEntry> batch, boolean replace) {
+        if (generation != loadGeneration.get()) {
+            return false;
+        }
+
+        var comparator = order();
+        batch.sort(comparator);
+
+        var newAll = new ArrayList<BrowserEntry>((replace ? 0 : all.getValue().size()) + batch.size());
+        if (!replace) {
+            newAll.addAll(all.getValue());
+        }
+        newAll.addAll(batch);
+
+        if (replace) {
+            pending = List.of();
+            remaining.set(0);
+        }
+
+        all.setValue(newAll);
+        if (replace || comparatorProperty.getValue() != sortedComparator) {
+            sortedComparator = comparatorProperty.getValue();
+            sorted = new ArrayList<>(newAll);
+            sorted.sort(comparator);
+            shownFilter = null;
             refreshShown();
+            return true;
         }
+
+        sorted = merge(sorted, batch, comparator);
+        shown.setValue(merge(shown.getValue(), filter(batch, shownFilter), comparator));
+        return true;
     }
 
-    public void updateEntry(FilePath p, FileEntry n) {
+    private synchronized void setPending(long generation, List<FileEntry> entries) {
+        if (generation != loadGeneration.get()) {
+            return;
+        }
+
+        pending = List.copyOf(entries);
+        remaining.set(pending.size());
+    }
+
+    public synchronized void updateEntry(FilePath p, FileEntry n) {
         var found = all.getValue().stream()
                 .filter(browserEntry -> browserEntry.getRawFileEntry().getPath().equals(p))
                 .findFirst();
@@ -63,12 +229,19 @@ public final class BrowserFileListModel {
 
         var index = all.getValue().indexOf(found.get());
         var l = new ArrayList<>(all.getValue());
+        var s = new ArrayList<>(sorted);
+        s.remove(found.get());
         if (n != null) {
-            l.set(index, new BrowserEntry(n, this));
+            var replacement = new BrowserEntry(n, this);
+            l.set(index, replacement);
+            var sortedIndex = Collections.binarySearch(s, replacement, order());
+            s.add(sortedIndex >= 0 ? sortedIndex : -sortedIndex - 1, replacement);
         } else {
             l.remove(index);
         }
         all.setValue(l);
+        sorted = s;
+        shownFilter = null;
         refreshShown();
     }
 
@@ -77,24 +250,23 @@ public final class BrowserFileListModel {
         refreshShown();
     }
 
-    void refreshShown() {
-        List<BrowserEntry> filtered = fileSystemModel.getFilter().getValue() != null
-                ? all.getValue().stream()
-                        .filter(entry -> {
-                            var name = entry.getRawFileEntry()
-                                    .getPath()
-                                    .getFileName()
-                                    .toLowerCase(Locale.ROOT);
-                            var filterString =
-                                    fileSystemModel.getFilter().getValue().toLowerCase(Locale.ROOT);
-                            return name.contains(filterString);
-                        })
-                        .toList()
-                : all.getValue();
-
-        var listCopy = new ArrayList<>(filtered);
-        listCopy.sort(order());
-        shown.setValue(listCopy);
+    synchronized void refreshShown() {
+        var comparator = order();
+        if (comparatorProperty.getValue() != sortedComparator) {
+            sortedComparator = comparatorProperty.getValue();
+            sorted = new ArrayList<>(all.getValue());
+            sorted.sort(comparator);
+            shownFilter = null;
+        }
+
+        var filter = fileSystemModel.getFilter().getValue() != null
+                ? fileSystemModel.getFilter().getValue().toLowerCase(Locale.ROOT)
+                : null;
+
+        // A more specific filter only has to look at the currently shown entries
+        var source = filter != null && shownFilter != null && filter.contains(shownFilter) ? shown.getValue() : sorted;
+        shownFilter = filter;
+        shown.setValue(new ArrayList<>(filter(source, filter)));
     }
 
     public Comparator<BrowserEntry> order() {
@@ -219,7 +219,7 @@ public final class BrowserFileSystemTabModel extends BrowserStoreSessionTab<File
     }
 
     public void refreshSync() {
-        cdSyncWithoutCheck(currentPath.get());
+        cdSyncWithoutCheck(currentPath.get(), true);
     }
 
     public void refreshBrowserEntriesSync(List<BrowserEntry> entries) {
@@ -256,9 +256,10 @@ public final class BrowserFileSystemTabModel extends BrowserStoreSessionTab<File
         }
 
         try {
-            for (var e : all) {
-                var refresh = fileSystem.getFileInfo(e.getPath());
-                fileList.updateEntry(e.getPath(), refresh.orElse(null));
+            var paths = all.stream().map(FileEntry::getPath).toList();
+            var refreshed = fileSystem.getFileInfos(paths);
+            for (int i = 0; i < paths.size(); i++) {
+                fileList.updateEntry(paths.get(i), refreshed.get(i).orElse(null));
             }
         } catch (Exception e) {
             ErrorEventFactory.fromThrowable(e).handle();
@@ -389,6 +390,16 @@ public final class BrowserFileSystemTabModel extends BrowserStoreSessionTab<File
             return Optional.ofNullable(cps);
         }
 
+        // Directories that were listed before don't have to be resolved and validated again
+        if (!customInput
+                && fileSystem
+                        .getListingCache()
+                        .flatMap(c -> c.get(FilePath.of(adjustedPath)))
+                        .isPresent()) {
+            cdSyncWithoutCheck(FilePath.of(adjustedPath).toDirectory(), false);
+            return Optional.empty();
+        }
+
         // Evaluate optional expressions
         String evaluatedPath;
         if (customInput) {
@@ -466,7 +477,7 @@ public final class BrowserFileSystemTabModel extends BrowserStoreSessionTab<File
 
         try {
             BrowserFileSystemHelper.validateDirectoryPath(fileSystem, resolvedPath, true);
-            cdSyncWithoutCheck(resolvedPath);
+            cdSyncWithoutCheck(resolvedPath, false);
         } catch (Exception ex) {
             ErrorEventFactory.fromThrowable(ex).handle();
             return Optional.ofNullable(cps);
@@ -495,25 +506,30 @@ public final class BrowserFileSystemTabModel extends BrowserStoreSessionTab<File
         }
     }
 
-    private void cdSyncWithoutCheck(FilePath path) {
+    private void cdSyncWithoutCheck(FilePath path, boolean forceRevalidate) {
 
         // Assume that the path is normalized to improve performance!
         // path = FileSystemHelper.normalizeDirectoryPath(this, path);
 
-        loadFilesSync(path);
+        loadFilesSync(path, forceRevalidate);
         filter.setValue(null);
         savedState.cd(path);
         history.updateCurrent(path);
         currentPath.set(path);
     }
 
-    private boolean loadFilesSync(FilePath dir) {
+    private boolean loadFilesSync(FilePath dir, boolean forceRevalidate) {
         try {
             startIfNeeded();
             var fs = getFileSystem();
             if (dir != null) {
-                var stream = fs.listFiles(fs, dir);
-                fileList.setAll(stream);
+                var cached = fs.getListingCache().flatMap(c -> c.get(dir));
+                if (cached.isPresent()) {
+                    fileList.setAll(cached.get().entries().stream());
+                    revalidateFilesAsync(dir, cached.get(), forceRevalidate);
+                } else {
+                    listFilesSync(dir, getKnownDirectoryDate(dir));
+                }
             } else {
                 fileList.setAll(Stream.of());
             }
@@ -525,6 +541,52 @@ public final class BrowserFileSystemTabModel extends BrowserStoreSessionTab<File
         }
     }
 
+    private void listFilesSync(FilePath dir, Instant directoryDate) throws Exception {
+        var fs = getFileSystem();
+        var listed = new ArrayList<FileEntry>();
+        // Only complete listings can be cached
+        if (fileList.setAll(fs.listFiles(fs, dir).peek(listed::add))) {
+            fs.getListingCache().ifPresent(c -> c.put(dir, directoryDate, listed));
+        }
+    }
+
+    private Instant getKnownDirectoryDate(FilePath dir) {
+        // The parent listing usually contains the directory, so we don't need another command for it
+        var parentListing = fileSystem.getListingCache().flatMap(c -> c.get(dir.getParent()));
+        return parentListing.stream()
+                .flatMap(listing -> listing.entries().stream())
+                .filter(entry -> entry.getKind() == FileKind.DIRECTORY && entry.getPath().equals(dir))
+                .map(FileEntry::getDate)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void revalidateFilesAsync(FilePath dir, FileSystemListingCache.Listing listing, boolean force) {
+        ThreadHelper.runFailableAsync(() -> {
+            BooleanScope.executeExclusive(busy, () -> {
+                // We might have navigated somewhere else in the meantime
+                if (fileSystem == null || !fileSystem.isRunning() || !dir.equals(currentPath.get())) {
+                    return;
+                }
+
+                // The directory modification date changes when files are added, removed, or renamed
+                var date = fileSystem.getFileInfo(dir).map(FileEntry::getDate).orElse(null);
+                if (!force && date != null && date.equals(listing.directoryDate())) {
+                    return;
+                }
+
+                try {
+                    listFilesSync(dir, date);
+                } catch (Exception e) {
+                    fileSystem.getListingCache().ifPresent(c -> c.invalidate(dir));
+                    fileList.setAll(Stream.of());
+                    ErrorEventFactory.fromThrowable(e).handle();
+                }
+            });
+        });
+    }
+
     public void dropLocalFilesIntoAsync(FileEntry entry, List<Path> files) {
         ThreadHelper.runFailableAsync(() -> {
             BooleanScope.executeExclusive(busy, () -> {
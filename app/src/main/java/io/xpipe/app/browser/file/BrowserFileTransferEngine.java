@@ -0,0 +1,263 @@
+package io.xpipe.app.browser.file;
+
+import io.xpipe.app.ext.FileSystem;
+import io.xpipe.app.issue.ErrorEventFactory;
+import io.xpipe.app.process.ShellControl;
+import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.core.FailableConsumer;
+import io.xpipe.core.FailableFunction;
+import io.xpipe.core.FilePath;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+class BrowserFileTransferEngine {
+
+    static final int MIN_BUFFER_SIZE = 64 * 1024;
+    static final int MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private static final int MIN_PIPELINE_FILES = 16;
+    private static final int PIPELINE_DEPTH = 8;
+    private static final long MAX_PREFETCH_SIZE = 1024 * 1024;
+    private static final Item END = new Item(null, null);
+
+    private final FileSystem sourceFs;
+    private final FileSystem targetFs;
+    private final BooleanSupplier cancelled;
+    private final Consumer<BrowserTransferProgress> progress;
+    private final AtomicLong transferred;
+    private final AtomicLong total;
+    private final FailableConsumer<Job, Exception> transfer;
+    private final FailableFunction<Job, Boolean, Exception> inlineTransfer;
+    private final ReentrantLock sourceLock = new ReentrantLock();
+
+    BrowserFileTransferEngine(
+            FileSystem sourceFs,
+            FileSystem targetFs,
+            BooleanSupplier cancelled,
+            Consumer<BrowserTransferProgress> progress,
+            AtomicLong transferred,
+            AtomicLong total,
+            FailableConsumer<Job, Exception> transfer,
+            FailableFunction<Job, Boolean, Exception> inlineTransfer) {
+        this.sourceFs = sourceFs;
+        this.targetFs = targetFs;
+        this.cancelled = cancelled;
+        this.progress = progress;
+        this.transferred = transferred;
+        this.total = total;
+        this.transfer = transfer;
+        this.inlineTransfer = inlineTransfer;
+    }
+
+    static int getInitialBufferSize(long fileSize) {
+        if (fileSize <= 0) {
+            return MIN_BUFFER_SIZE;
+        }
+
+        return (int) Math.min(fileSize, Math.clamp(fileSize / 8, MIN_BUFFER_SIZE, MAX_BUFFER_SIZE));
+    }
+
+    private static ShellControl getRootShell(FileSystem fs) {
+        var sc = fs.getShell().orElse(null);
+        while (sc != null && sc.getParentControl().isPresent()) {
+            sc = sc.getParentControl().get();
+        }
+        return sc;
+    }
+
+    private boolean canPipeline(int files) {
+        if (files < MIN_PIPELINE_FILES) {
+            return false;
+        }
+
+        // Both sides have to be usable at the same time
+        var sourceShell = getRootShell(sourceFs);
+        return sourceShell == null || !Objects.equals(sourceShell, getRootShell(targetFs));
+    }
+
+    void run(List<Job> jobs) throws Exception {
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        // Whether instant transfers work depends on the file system pair, not the file
+        // So only probe the first file and use the same approach for all others
+        if (inlineTransfer.apply(jobs.getFirst())) {
+            for (var job : jobs.subList(1, jobs.size())) {
+                if (cancelled.getAsBoolean()) {
+                    return;
+                }
+
+                if (!inlineTransfer.apply(job)) {
+                    transfer.accept(job);
+                }
+            }
+            return;
+        }
+
+        // The probed file still has to be transferred
+        if (!canPipeline(jobs.size())) {
+            for (var job : jobs) {
+                if (cancelled.getAsBoolean()) {
+                    return;
+                }
+
+                transfer.accept(job);
+            }
+            return;
+        }
+
+        // The source session reads the next small files while the target session writes the previous ones
+        // This doesn't require any additional sessions
+        var queue = new ArrayBlockingQueue<Item>(PIPELINE_DEPTH);
+        var failure = new AtomicReference<Exception>();
+        var reader = ThreadHelper.unstarted(() -> read(jobs, queue, failure));
+        var writer = ThreadHelper.unstarted(() -> write(queue, failure));
+        reader.setDaemon(true);
+        writer.setDaemon(true);
+        reader.start();
+        writer.start();
+
+        var killed = false;
+        for (Thread thread : List.of(reader, writer)) {
+            while (!thread.join(Duration.ofMillis(100))) {
+                if (!killed && cancelled.getAsBoolean()) {
+                    // Reads and writes might block, so kill the shells to unblock them
+                    killed = true;
+                    sourceFs.kill();
+                    targetFs.kill();
+                }
+            }
+        }
+
+        var ex = failure.get();
+        if (ex != null) {
+            ErrorEventFactory.preconfigure(ErrorEventFactory.fromThrowable(ex)
+                    .reportable(!cancelled.getAsBoolean())
+                    .omitted(cancelled.getAsBoolean()));
+            throw ex;
+        }
+    }
+
+    private boolean isStopped(AtomicReference<Exception> failure) {
+        return failure.get() != null || cancelled.getAsBoolean();
+    }
+
+    private void fail(AtomicReference<Exception> failure, Exception ex) {
+        if (!failure.compareAndSet(null, ex)) {
+            failure.get().addSuppressed(ex);
+        }
+    }
+
+    private boolean put(BlockingQueue<Item> queue, Item item, AtomicReference<Exception> failure)
+            throws InterruptedException {
+        while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            if (isStopped(failure)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void read(List<Job> jobs, BlockingQueue<Item> queue, AtomicReference<Exception> failure) {
+        try {
+            for (var job : jobs) {
+                if (isStopped(failure)) {
+                    return;
+                }
+
+                // Larger files and files with an unknown size are streamed by the writer
+                byte[] data = null;
+                if (job.size() >= 0 && job.size() <= MAX_PREFETCH_SIZE) {
+                    sourceLock.lock();
+                    try {
+                        data = readFully(job);
+                    } finally {
+                        sourceLock.unlock();
+                    }
+                }
+
+                if (!put(queue, new Item(job, data), failure)) {
+                    return;
+                }
+            }
+            put(queue, END, failure);
+        } catch (Exception ex) {
+            fail(failure, ex);
+        }
+    }
+
+    private byte[] readFully(Job job) throws Exception {
+        // The file is read completely before the target file is created, so read failures don't affect the target
+        byte[] data;
+        try (var in = sourceFs.openInput(job.source())) {
+            data = in.readNBytes((int) job.size());
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+
+        if (data.length < job.size()) {
+            throw new IOException("Source file " + job.source() + " input size mismatch: Expected " + job.size()
+                    + " but got " + data.length + ". Did the source file get updated?");
+        }
+        return data;
+    }
+
+    private void write(BlockingQueue<Item> queue, AtomicReference<Exception> failure) {
+        try {
+            while (true) {
+                if (isStopped(failure)) {
+                    return;
+                }
+
+                var item = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    continue;
+                }
+
+                if (item == END) {
+                    return;
+                }
+
+                if (item.data() != null) {
+                    writeFully(item.job(), item.data());
+                    continue;
+                }
+
+                // Streamed transfers also require the source file system
+                sourceLock.lock();
+                try {
+                    transfer.accept(item.job());
+                } finally {
+                    sourceLock.unlock();
+                }
+            }
+        } catch (Exception ex) {
+            fail(failure, ex);
+        }
+    }
+
+    private void writeFully(Job job, byte[] data) throws Exception {
+        var name = job.source().getFileName();
+        progress.accept(new BrowserTransferProgress(name, transferred.get(), total.get()));
+        try (var out = targetFs.openOutput(job.target(), data.length)) {
+            out.write(data);
+        }
+        progress.accept(new BrowserTransferProgress(name, transferred.addAndGet(data.length), total.get()));
+    }
+
+    private record Item(Job job, byte[] data) {}
+
+    record Job(FilePath source, FilePath target, long size) {}
+}
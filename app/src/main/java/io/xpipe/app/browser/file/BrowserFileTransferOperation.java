@@ -4,9 +4,16 @@ import io.xpipe.app.core.mode.AppOperationMode;
 import io.xpipe.app.ext.FileEntry;
 import io.xpipe.app.ext.FileKind;
 import io.xpipe.app.ext.FileSystem;
+import io.xpipe.app.ext.FileSystemListingCache;
 import io.xpipe.app.issue.ErrorEventFactory;
+import io.xpipe.app.process.CommandBuilder;
+import io.xpipe.app.process.CommandControl;
+import io.xpipe.app.process.ProcessOutputException;
+import io.xpipe.app.process.ShellControl;
+import io.xpipe.app.process.ShellDialects;
 import io.xpipe.app.util.ThreadHelper;
 import io.xpipe.core.FilePath;
+import io.xpipe.core.OsType;
 
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.value.ChangeListener;
@@ -17,8 +24,10 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -26,8 +35,6 @@ import java.util.function.Consumer;
 
 public class BrowserFileTransferOperation {
 
-    private static final int DEFAULT_BUFFER_SIZE = 1024;
-
     @Getter
     private final FileEntry target;
 
@@ -84,7 +91,7 @@ public class BrowserFileTransferOperation {
         getTarget().getFileSystem().reinitIfNeeded();
     }
 
-    private void updateProgress(BrowserTransferProgress progress) {
+    private synchronized void updateProgress(BrowserTransferProgress progress) {
         this.progress.accept(progress);
     }
 
@@ -322,6 +329,13 @@ public class BrowserFileTransferOperation {
 
         try {
             AtomicLong transferred = new AtomicLong();
+            if (source.getKind() == FileKind.DIRECTORY
+                    && !source.getPath().isRoot()
+                    && transferArchive(source, optimizedSourceFs, targetFs, transferred, totalSize)) {
+                return;
+            }
+
+            var jobs = new ArrayList<BrowserFileTransferEngine.Job>();
             for (var e : flatFiles.entrySet()) {
                 if (cancelled()) {
                     return;
@@ -350,9 +364,22 @@ public class BrowserFileTransferOperation {
                         }
                     }
 
-                    transfer(sourceFile.getPath(), optimizedSourceFs, targetFile, targetFs, transferred, totalSize);
+                    // Sizes of traversed files are up-to-date, only the passed source entry might be outdated
+                    var size = sourceFile != source ? sourceFile.getFileSizeLong().orElse(-1) : -1;
+                    jobs.add(new BrowserFileTransferEngine.Job(sourceFile.getPath(), targetFile, size));
                 }
             }
+
+            var engine = new BrowserFileTransferEngine(
+                    optimizedSourceFs,
+                    targetFs,
+                    this::cancelled,
+                    this::updateProgress,
+                    transferred,
+                    totalSize,
+                    job -> transfer(job, optimizedSourceFs, targetFs, transferred, totalSize),
+                    job -> transferInline(job, optimizedSourceFs, targetFs));
+            engine.run(jobs);
         } finally {
             updateProgress(BrowserTransferProgress.finished(source.getName(), totalSize.get()));
 
@@ -365,46 +392,187 @@ public class BrowserFileTransferOperation {
         }
     }
 
-    private boolean transferInline(FilePath sourceFile, FileSystem sourceFs, FilePath targetFile, FileSystem targetFs)
+    private boolean canTransferArchive(FileSystem sourceFs, FileSystem targetFs) throws Exception {
+        var sourceShell = sourceFs.getShell();
+        var targetShell = targetFs.getShell();
+        if (sourceShell.isEmpty() || targetShell.isEmpty()) {
+            return false;
+        }
+
+        // Windows tar and shell streams are not reliable enough for this, so transfer these per file
+        if (sourceShell.get().getOsType() == OsType.WINDOWS
+                || targetShell.get().getOsType() == OsType.WINDOWS) {
+            return false;
+        }
+
+        // The exit status is captured with posix shell syntax
+        if (!ShellDialects.isPosix(sourceShell.get()) || !ShellDialects.isPosix(targetShell.get())) {
+            return false;
+        }
+
+        return sourceShell.get().view().isInPath("tar", true)
+                && targetShell.get().view().isInPath("tar", true);
+    }
+
+    private boolean transferArchive(
+            FileEntry source, FileSystem sourceFs, FileSystem targetFs, AtomicLong transferred, AtomicLong totalSize)
             throws Exception {
-        var wasRun = new AtomicBoolean(false);
-        var active = new AtomicBoolean(true);
-        var ex = new AtomicReference<Exception>();
-        ThreadHelper.runAsync(() -> {
-            try {
-                if (targetFs.writeInstantIfPossible(sourceFs, sourceFile, targetFile)
-                        || sourceFs.readInstantIfPossible(sourceFile, targetFs, targetFile)) {
-                    wasRun.set(true);
+        if (!canTransferArchive(sourceFs, targetFs)) {
+            return false;
+        }
+
+        // Only transfer new directories as a whole, existing files would require a conflict check per file
+        var name = source.getPath().getFileName();
+        if (!targetFs.makeFileSystemCompatible(FilePath.of(name)).toString().equals(name)) {
+            return false;
+        }
+        var targetDir = target.getPath().join(name);
+        if (targetFs.directoryExists(targetDir) || targetFs.fileExists(targetDir)) {
+            return false;
+        }
+
+        var sourceShell = sourceFs.getShell().orElseThrow();
+        var targetShell = targetFs.getShell().orElseThrow();
+        var compress = sourceShell.view().isInPath("gzip", true)
+                && targetShell.view().isInPath("gzip", true);
+        // The streams don't report the exit code of the commands, so write the status and errors into log files
+        var id = UUID.randomUUID().toString();
+        var sourceLog = sourceShell.getSystemTemporaryDirectory().join("xpipe-tar-" + id + "-source.log");
+        var targetLog = targetShell.getSystemTemporaryDirectory().join("xpipe-tar-" + id + "-target.log");
+        var pack = CommandBuilder.of()
+                .add("tar", compress ? "-czf" : "-cf", "-", "-C")
+                .addFile(source.getPath().getParent())
+                .addFile(name)
+                .add("2>")
+                .addFile(sourceLog)
+                .add(";", "echo", "$?", ">>")
+                .addFile(sourceLog);
+        var unpack = CommandBuilder.of()
+                .add("tar", compress ? "-xzof" : "-xof", "-", "-C")
+                .addFile(target.getPath())
+                .add("2>")
+                .addFile(targetLog)
+                .add(";", "echo", "$?", ">>")
+                .addFile(targetLog);
+
+        // Reads and writes might block, so kill the shells to unblock them
+        ChangeListener<Boolean> cancelListener = (observableValue, oldValue, newValue) -> {
+            if (!newValue) {
+                return;
+            }
+
+            sourceFs.kill();
+            targetFs.kill();
+        };
+        cancelled.addListener(cancelListener);
+        var success = false;
+        try {
+            try (var in = sourceShell.command(pack).startExternalStdout();
+                    var out = targetShell.command(unpack).startExternalStdin()) {
+                var buffer = new byte[BrowserFileTransferEngine.MAX_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    if (cancelled()) {
+                        break;
+                    }
+
+                    out.write(buffer, 0, read);
+                    // The archive size does not exactly match the file sizes
+                    var current = Math.min(transferred.addAndGet(read), totalSize.get());
+                    updateProgress(new BrowserTransferProgress(source.getName(), current, totalSize.get()));
                 }
-                active.set(false);
-            } catch (Exception e) {
-                wasRun.set(true);
-                active.set(false);
-                ex.set(e);
             }
-        });
 
-        while (active.get()) {
             if (cancelled()) {
-                sourceFs.kill();
-                targetFs.kill();
-                break;
+                return true;
+            }
+
+            // Both sides have to succeed, otherwise the target is incomplete
+            checkArchiveLog(sourceShell, pack, sourceLog);
+            checkArchiveLog(targetShell, unpack, targetLog);
+            success = true;
+        } finally {
+            cancelled.removeListener(cancelListener);
+            if (!success) {
+                removePartialTarget(targetFs, targetDir);
             }
+            // The archive is extracted by a plain command, so the file system doesn't know about the changes
+            FileSystemListingCache.invalidateAll(targetDir);
+        }
+        return true;
+    }
+
+    private void checkArchiveLog(ShellControl sc, CommandBuilder command, FilePath log) throws Exception {
+        String content;
+        try {
+            content = sc.view().readTextFile(log).strip();
+        } finally {
+            sc.command(CommandBuilder.of().add("rm", "-f").addFile(log)).executeAndCheck();
+        }
+
+        var lines = content.lines().toList();
+        var exitCode = lines.isEmpty() ? CommandControl.UNASSIGNED_EXIT_CODE : parseExitCode(lines.getLast());
+        if (exitCode != 0) {
+            var errors = String.join("\n", lines.subList(0, Math.max(0, lines.size() - 1)));
+            throw ProcessOutputException.of(command.buildSimple(), exitCode, errors);
+        }
+    }
 
-            ThreadHelper.sleep(10);
+    private static long parseExitCode(String s) {
+        try {
+            return Long.parseLong(s.strip());
+        } catch (NumberFormatException e) {
+            return CommandControl.UNASSIGNED_EXIT_CODE;
         }
+    }
 
-        if (ex.get() != null) {
-            throw ex.get();
+    private void removePartialTarget(FileSystem targetFs, FilePath targetDir) {
+        try {
+            // The shell might have been killed on cancel
+            targetFs.reinitIfNeeded();
+            if (targetFs.directoryExists(targetDir)) {
+                targetFs.delete(targetDir);
+            }
+        } catch (Exception e) {
+            ErrorEventFactory.fromThrowable(e).omit().expected().handle();
         }
+    }
 
-        return wasRun.get();
+    private boolean transferInline(BrowserFileTransferEngine.Job job, FileSystem sourceFs, FileSystem targetFs)
+            throws Exception {
+        if (transferInline(job.source(), sourceFs, job.target(), targetFs) || cancelled()) {
+            if (!cancelled()) {
+                var fileSize = job.size() >= 0 ? job.size() : 0;
+                updateProgress(BrowserTransferProgress.finished(job.source().getFileName(), fileSize));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean transferInline(FilePath sourceFile, FileSystem sourceFs, FilePath targetFile, FileSystem targetFs)
+            throws Exception {
+        // The instant transfer might block, so kill the shells to unblock it on cancel
+        ChangeListener<Boolean> cancelListener = (observableValue, oldValue, newValue) -> {
+            if (!newValue) {
+                return;
+            }
+
+            sourceFs.kill();
+            targetFs.kill();
+        };
+        cancelled.addListener(cancelListener);
+        try {
+            return targetFs.writeInstantIfPossible(sourceFs, sourceFile, targetFile)
+                    || sourceFs.readInstantIfPossible(sourceFile, targetFs, targetFile);
+        } finally {
+            cancelled.removeListener(cancelListener);
+        }
     }
 
     private void transfer(
-            FilePath sourceFile,
+            BrowserFileTransferEngine.Job job,
             FileSystem sourceFs,
-            FilePath targetFile,
             FileSystem targetFs,
             AtomicLong transferred,
             AtomicLong totalSize)
@@ -413,16 +581,11 @@ public class BrowserFileTransferOperation {
             return;
         }
 
+        var sourceFile = job.source();
+        var targetFile = job.target();
         updateProgress(new BrowserTransferProgress(sourceFile.getFileName(), 0, 0));
 
-        var fileSize = sourceFs.getFileSize(sourceFile);
-
-        if (transferInline(sourceFile, sourceFs, targetFile, targetFs) || cancelled()) {
-            if (!cancelled()) {
-                updateProgress(BrowserTransferProgress.finished(sourceFile.getFileName(), fileSize));
-            }
-            return;
-        }
+        var fileSize = job.size() >= 0 ? job.size() : sourceFs.getFileSize(sourceFile);
 
         InputStream inputStream = null;
         OutputStream outputStream = null;
@@ -526,10 +689,10 @@ public class BrowserFileTransferOperation {
         var readCount = new AtomicLong();
         var thread = ThreadHelper.createPlatformThread("transfer", true, () -> {
             try {
-                var bs = (int) Math.min(DEFAULT_BUFFER_SIZE, expectedFileSize);
+                var bs = expectedFileSize > 0 ? BrowserFileTransferEngine.getInitialBufferSize(expectedFileSize) : 0;
                 byte[] buffer = new byte[bs];
                 int read;
-                while ((read = inputStream.read(buffer, 0, bs)) > 0) {
+                while ((read = inputStream.read(buffer, 0, buffer.length)) > 0) {
                     if (cancelled()) {
                         killStreams.set(true);
                         break;
@@ -545,6 +708,13 @@ public class BrowserFileTransferOperation {
                     readCount.addAndGet(read);
                     updateProgress(
                             new BrowserTransferProgress(sourceFile.getFileName(), transferred.get(), total.get()));
+
+                    // Grow the buffer for fast connections
+                    if (read == buffer.length
+                            && buffer.length < BrowserFileTransferEngine.MAX_BUFFER_SIZE
+                            && readCount.get() < expectedFileSize) {
+                        buffer = new byte[Math.min(buffer.length * 2, BrowserFileTransferEngine.MAX_BUFFER_SIZE)];
+                    }
                 }
 
                 outputStream.flush();
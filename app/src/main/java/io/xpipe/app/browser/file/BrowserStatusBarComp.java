@@ -4,10 +4,12 @@ import io.xpipe.app.comp.BaseRegionBuilder;
 import io.xpipe.app.comp.RegionBuilder;
 import io.xpipe.app.comp.SimpleRegionBuilder;
 import io.xpipe.app.comp.augment.ContextMenuAugment;
+import io.xpipe.app.comp.base.ButtonComp;
 import io.xpipe.app.comp.base.HorizontalComp;
 import io.xpipe.app.comp.base.IconButtonComp;
 import io.xpipe.app.comp.base.LabelComp;
 import io.xpipe.app.core.AppFontSizes;
+import io.xpipe.app.core.AppI18n;
 import io.xpipe.app.platform.BindingsHelper;
 import io.xpipe.app.platform.PlatformThread;
 import io.xpipe.app.util.HumanReadableFormat;
@@ -38,6 +40,7 @@ public class BrowserStatusBarComp extends SimpleRegionBuilder {
                 RegionBuilder.hspacer(),
                 createClipboardStatus(),
                 createSelectionStatus(),
+                createLoadMoreButton(),
                 createKillButton()));
         bar.spacing(15);
         bar.style("status-bar");
@@ -65,6 +68,21 @@ public class BrowserStatusBarComp extends SimpleRegionBuilder {
         return r;
     }
 
+    private BaseRegionBuilder<?, ?> createLoadMoreButton() {
+        var remaining = PlatformThread.sync(model.getFileList().getRemaining());
+        var text = BindingsHelper.flatMap(remaining, count -> {
+            var c = count.intValue();
+            return AppI18n.observable(c == 1 ? "loadMoreFile" : "loadMoreFiles", c);
+        });
+        var button = new ButtonComp(text, () -> {
+            ThreadHelper.runAsync(() -> {
+                model.getFileList().loadMore();
+            });
+        });
+        button.hide(Bindings.createBooleanBinding(() -> remaining.getValue().intValue() == 0, remaining));
+        return button.minWidth(Region.USE_PREF_SIZE);
+    }
+
     private BaseRegionBuilder<?, ?> createKillButton() {
         var button = new IconButtonComp("mdi2s-stop", () -> {
             ThreadHelper.runAsync(() -> {
@@ -9,6 +9,7 @@ import javafx.scene.image.WritableImage;
 import org.apache.commons.io.FilenameUtils;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -177,6 +178,14 @@ public class AppImages {
         images.put(key, loadImage(p));
     }
 
+    public static void loadImage(byte[] bytes, String key) {
+        if (images.containsKey(key)) {
+            return;
+        }
+
+        images.put(key, new Image(new ByteArrayInputStream(bytes), -1, -1, true, true));
+    }
+
     public static Image loadImage(Path p) {
         if (p == null) {
             return DEFAULT_IMAGE;
@@ -0,0 +1,128 @@
+package io.xpipe.app.core;
+
+import io.xpipe.app.issue.TrackEvent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class AppLogWriter {
+
+    private static final int CAPACITY = 8192;
+    private static final Object STOP = new Object();
+
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Consumer<TrackEvent> sink;
+    private final Runnable flusher;
+    private final boolean dropOnOverflow;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    public AppLogWriter(Consumer<TrackEvent> sink, Runnable flusher, boolean dropOnOverflow) {
+        this.sink = sink;
+        this.flusher = flusher;
+        this.dropOnOverflow = dropOnOverflow;
+        this.thread = new Thread(this::run, "log writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void submit(TrackEvent event) {
+        if (closed || Thread.currentThread() == thread) {
+            writeDirectly(event);
+            return;
+        }
+
+        // Errors and warnings are never dropped
+        var canDrop = dropOnOverflow && !event.getType().equals("error") && !event.getType().equals("warn");
+        if (canDrop) {
+            if (!queue.offer(event)) {
+                dropped.incrementAndGet();
+            }
+            return;
+        }
+
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeDirectly(event);
+        }
+    }
+
+    public void flush() {
+        if (closed || Thread.currentThread() == thread) {
+            flushDirectly();
+            return;
+        }
+
+        var latch = new CountDownLatch(1);
+        try {
+            queue.put(latch);
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        try {
+            queue.put(STOP);
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushDirectly();
+    }
+
+    private void run() {
+        while (true) {
+            Object next;
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (next == STOP) {
+                return;
+            }
+
+            if (next instanceof CountDownLatch latch) {
+                flushDirectly();
+                latch.countDown();
+                continue;
+            }
+
+            var count = dropped.getAndSet(0);
+            if (count > 0) {
+                writeDirectly(TrackEvent.builder()
+                        .type("warn")
+                        .message("Dropped " + count + " log messages as the log queue was full")
+                        .build());
+            }
+            writeDirectly((TrackEvent) next);
+        }
+    }
+
+    private synchronized void writeDirectly(TrackEvent event) {
+        try {
+            sink.accept(event);
+        } catch (Throwable ignored) {
+            // Reporting this would go through the log again
+        }
+    }
+
+    private synchronized void flushDirectly() {
+        flusher.run();
+    }
+}
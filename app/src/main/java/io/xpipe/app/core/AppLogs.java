@@ -59,6 +59,10 @@ public class AppLogs {
 
     private final PrintStream outFileStream;
 
+    private final int logLevelIndex;
+
+    private final AppLogWriter writer;
+
     public AppLogs(
             Path logDir, boolean writeToSysout, boolean writeToFile, String logLevel, PrintStream outFileStream) {
         this.logDir = logDir;
@@ -66,10 +70,16 @@ public class AppLogs {
         this.writeToFile = writeToFile;
         this.logLevel = logLevel;
         this.outFileStream = outFileStream;
+        var li = LOG_LEVELS.indexOf(logLevel);
+        this.logLevelIndex = li == -1 ? 5 : li;
 
         this.originalSysOut = System.out;
         this.originalSysErr = System.err;
 
+        // Events are formatted and written on a separate thread to not block the callers
+        this.writer = new AppLogWriter(
+                this::writeEvent, this::flushStreams, AppProperties.get().isLogDropOnOverflow());
+
         setLogLevels();
         hookUpSystemOut();
         hookUpSystemErr();
@@ -157,12 +167,20 @@ public class AppLogs {
     }
 
     public void flush() {
+        writer.flush();
+    }
+
+    private void flushStreams() {
+        if (writeToSysout) {
+            originalSysOut.flush();
+        }
         if (outFileStream != null) {
             outFileStream.flush();
         }
     }
 
     private void close() {
+        writer.close();
         if (outFileStream != null) {
             outFileStream.close();
         }
@@ -221,21 +239,30 @@ public class AppLogs {
         logEvent(event);
     }
 
-    public synchronized void logEvent(TrackEvent event) {
-        var li = LOG_LEVELS.indexOf(AppProperties.get().getLogLevel());
-        int i = li == -1 ? 5 : li;
-        int current = LOG_LEVELS.indexOf(event.getType());
-        if (current <= i) {
-            if (writeToSysout) {
-                logSysOut(event);
-            }
-            if (writeToFile) {
-                logToFile(event);
-            }
+    public boolean isLevelEnabled(String type) {
+        return LOG_LEVELS.indexOf(type) <= logLevelIndex;
+    }
+
+    public void logEvent(TrackEvent event) {
+        if (!isLevelEnabled(event.getType())) {
+            return;
+        }
+
+        // Lazy messages might reference state that changes later, so compute them now
+        event.getMessage();
+        writer.submit(event);
+    }
+
+    private void writeEvent(TrackEvent event) {
+        if (writeToSysout) {
+            logSysOut(event);
+        }
+        if (writeToFile) {
+            logToFile(event);
         }
     }
 
-    private synchronized void logSysOut(TrackEvent event) {
+    private void logSysOut(TrackEvent event) {
         var time = MESSAGE_FORMATTER.format(event.getInstant());
         var string =
                 new StringBuilder(time).append(" - ").append(event.getType()).append(": ");
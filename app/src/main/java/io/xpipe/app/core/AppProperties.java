@@ -29,6 +29,11 @@ public class AppProperties {
     boolean staging;
     boolean useVirtualThreads;
     boolean debugThreads;
+    boolean debugStorageIndex;
+    int beaconServerThreads;
+    int browserFileListLimit;
+    int fanOutConcurrency;
+    int fanOutTimeout;
     Path dataDir;
     Path defaultReleaseDataDir;
     Path defaultDataDir;
@@ -54,6 +59,7 @@ public class AppProperties {
     boolean logToSysOut;
     boolean logToFile;
     boolean logPlatformDebug;
+    boolean logDropOnOverflow;
     String logLevel;
     String loginTarget;
 
@@ -105,6 +111,21 @@ public class AppProperties {
         debugThreads = Optional.ofNullable(System.getProperty(AppNames.propertyName("debugThreads")))
                 .map(Boolean::parseBoolean)
                 .orElse(false);
+        debugStorageIndex = Optional.ofNullable(System.getProperty(AppNames.propertyName("debugStorageIndex")))
+                .map(Boolean::parseBoolean)
+                .orElse(false);
+        beaconServerThreads = Optional.ofNullable(System.getProperty(AppNames.propertyName("beaconServerThreads")))
+                .map(Integer::parseInt)
+                .orElse(0);
+        browserFileListLimit = Optional.ofNullable(System.getProperty(AppNames.propertyName("browserFileListLimit")))
+                .map(Integer::parseInt)
+                .orElse(0);
+        fanOutConcurrency = Optional.ofNullable(System.getProperty(AppNames.propertyName("fanOutConcurrency")))
+                .map(Integer::parseInt)
+                .orElse(0);
+        fanOutTimeout = Optional.ofNullable(System.getProperty(AppNames.propertyName("fanOutTimeout")))
+                .map(Integer::parseInt)
+                .orElse(0);
         debugPlatformThreadAccess = Optional.ofNullable(
                         System.getProperty(AppNames.propertyName("debugPlatformThreadAccess")))
                 .map(Boolean::parseBoolean)
@@ -153,6 +174,9 @@ public class AppProperties {
         logPlatformDebug = Optional.ofNullable(System.getProperty(AppNames.propertyName("debugPlatform")))
                 .map(Boolean::parseBoolean)
                 .orElse(false);
+        logDropOnOverflow = Optional.ofNullable(System.getProperty(AppNames.propertyName("logDropOnOverflow")))
+                .map(Boolean::parseBoolean)
+                .orElse(false);
         logLevel = Optional.ofNullable(System.getProperty(AppNames.propertyName("logLevel")))
                 .filter(s -> AppLogs.LOG_LEVELS.contains(s))
                 .orElse("info");
@@ -10,6 +10,7 @@ import io.xpipe.core.FilePath;
 import io.xpipe.core.OsType;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.io.BufferedInputStream;
@@ -18,8 +19,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 @Getter
@@ -28,6 +32,10 @@ public class ConnectionFileSystem implements FileSystem {
     @JsonIgnore
     protected final ShellControl shellControl;
 
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    private final FileSystemListingCache listingCache = new FileSystemListingCache();
+
     public ConnectionFileSystem(ShellControl shellControl) {
         this.shellControl = shellControl;
     }
@@ -111,6 +119,7 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public void chmod(FilePath path, String mode, boolean recursive) throws Exception {
+        FileSystemListingCache.invalidateAll(path);
         shellControl
                 .command(CommandBuilder.of()
                         .add("chmod")
@@ -122,6 +131,7 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public void chown(FilePath path, String uid, boolean recursive) throws Exception {
+        FileSystemListingCache.invalidateAll(path);
         shellControl
                 .command(CommandBuilder.of()
                         .add("chown")
@@ -133,6 +143,7 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public void chgrp(FilePath path, String gid, boolean recursive) throws Exception {
+        FileSystemListingCache.invalidateAll(path);
         shellControl
                 .command(CommandBuilder.of()
                         .add("chgrp")
@@ -266,6 +277,7 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public OutputStream openOutput(FilePath file, long totalBytes) throws Exception {
+        FileSystemListingCache.invalidateAll(file);
         if (shellControl.isLocal()) {
             return new BufferedOutputStream(Files.newOutputStream(file.asLocalPath()));
         }
@@ -287,6 +299,7 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public void delete(FilePath file) throws Exception {
+        FileSystemListingCache.invalidateAll(file);
         try (var pc = shellControl
                 .getShellDialect()
                 .deleteFileOrDirectory(shellControl, file.toString())
@@ -297,6 +310,7 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public void copy(FilePath file, FilePath newFile) throws Exception {
+        FileSystemListingCache.invalidateAll(newFile);
         try (var pc = shellControl
                 .getShellDialect()
                 .getFileCopyCommand(shellControl, file.toString(), newFile.toString())
@@ -307,6 +321,8 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public void move(FilePath file, FilePath newFile) throws Exception {
+        FileSystemListingCache.invalidateAll(file);
+        FileSystemListingCache.invalidateAll(newFile);
         try (var pc = shellControl
                 .getShellDialect()
                 .getFileMoveCommand(shellControl, file.toString(), newFile.toString())
@@ -317,6 +333,7 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public void mkdirs(FilePath file) throws Exception {
+        FileSystemListingCache.invalidateAll(file);
         try (var pc = shellControl
                 .command(
                         CommandBuilder.ofFunction(proc -> proc.getShellDialect().getMkdirsCommand(file.toString())))
@@ -327,6 +344,7 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public void touch(FilePath file) throws Exception {
+        FileSystemListingCache.invalidateAll(file);
         try (var pc = shellControl
                 .getShellDialect()
                 .getFileTouchCommand(shellControl, file.toString())
@@ -337,6 +355,7 @@ public class ConnectionFileSystem implements FileSystem {
 
     @Override
     public void symbolicLink(FilePath linkFile, FilePath targetFile) throws Exception {
+        FileSystemListingCache.invalidateAll(linkFile);
         try (var pc = shellControl
                 .getShellDialect()
                 .symbolicLink(shellControl, linkFile.toString(), targetFile.toString())
@@ -373,11 +392,69 @@ public class ConnectionFileSystem implements FileSystem {
         }
     }
 
+    @Override
+    public List<Optional<FileEntry>> getFileInfos(List<FilePath> files) throws Exception {
+        var infos = shellControl
+                .getShellDialect()
+                .listFileInfos(this, shellControl, files.stream().map(FilePath::toString).toList());
+        if (infos.isEmpty()) {
+            return FileSystem.super.getFileInfos(files);
+        }
+
+        // The returned paths might be formatted differently than the requested ones
+        var found = new HashMap<String, FileEntry>();
+        try (var stream = infos.get()) {
+            stream.forEach(entry -> found.put(getFileInfoKey(entry.getPath()), entry));
+        }
+
+        // Files might be missing from the output for other reasons than not existing, e.g. permissions
+        // Only a single query can tell for sure
+        var list = new ArrayList<Optional<FileEntry>>();
+        for (FilePath file : files) {
+            var entry = found.get(getFileInfoKey(file));
+            list.add(entry != null ? Optional.of(entry) : getFileInfo(file));
+        }
+        return list;
+    }
+
+    private String getFileInfoKey(FilePath file) {
+        var s = file.normalize().removeTrailingSlash().toString();
+        return shellControl.getOsType() == OsType.WINDOWS ? s.toLowerCase(Locale.ROOT) : s;
+    }
+
+    @Override
+    public Optional<FileSystemListingCache> getListingCache() {
+        return Optional.of(listingCache);
+    }
+
     @Override
     public Stream<FileEntry> listFiles(FileSystem system, FilePath file) throws Exception {
         return shellControl.getShellDialect().listFiles(system, shellControl, file.toString(), true);
     }
 
+    @Override
+    public void traverseFilesRecursively(
+            FileSystem system, FilePath file, int maxDepth, String nameGlob, Predicate<FileEntry> visitor)
+            throws Exception {
+        var bulk = shellControl
+                .getShellDialect()
+                .listFilesRecursively(system, shellControl, file.toString(), maxDepth, nameGlob);
+        if (bulk.isEmpty()) {
+            traverseFilesPerDirectory(system, file, maxDepth, nameGlob, visitor);
+            return;
+        }
+
+        try (var stream = bulk.get()) {
+            var it = stream.iterator();
+            while (it.hasNext()) {
+                // False will cancel the whole traversal
+                if (!visitor.test(it.next())) {
+                    return;
+                }
+            }
+        }
+    }
+
     @Override
     public List<FilePath> listRoots() throws Exception {
         return shellControl
@@ -1,6 +1,7 @@
 package io.xpipe.app.ext;
 
 import io.xpipe.app.process.ShellControl;
+import io.xpipe.app.util.GlobHelper;
 import io.xpipe.core.FilePath;
 
 import java.io.Closeable;
@@ -10,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 public interface FileSystem extends Closeable, AutoCloseable {
@@ -98,44 +100,80 @@ public interface FileSystem extends Closeable, AutoCloseable {
 
     Optional<FileEntry> getFileInfo(FilePath file) throws Exception;
 
+    default List<Optional<FileEntry>> getFileInfos(List<FilePath> files) throws Exception {
+        var list = new ArrayList<Optional<FileEntry>>();
+        for (FilePath file : files) {
+            list.add(getFileInfo(file));
+        }
+        return list;
+    }
+
+    Optional<FileSystemListingCache> getListingCache();
+
     Stream<FileEntry> listFiles(FileSystem system, FilePath file) throws Exception;
 
     default List<FileEntry> listFilesRecursively(FileSystem system, FilePath file) throws Exception {
+        return listFilesRecursively(system, file, Integer.MAX_VALUE);
+    }
+
+    default List<FileEntry> listFilesRecursively(FileSystem system, FilePath file, int maxDepth) throws Exception {
         var all = new ArrayList<FileEntry>();
-        traverseFilesRecursively(system, file, all::add);
+        traverseFilesRecursively(system, file, maxDepth, all::add);
         return all;
     }
 
     default void traverseFilesRecursively(FileSystem system, FilePath file, Predicate<FileEntry> visitor)
             throws Exception {
+        traverseFilesRecursively(system, file, Integer.MAX_VALUE, visitor);
+    }
+
+    default void traverseFilesRecursively(
+            FileSystem system, FilePath file, int maxDepth, Predicate<FileEntry> visitor) throws Exception {
+        traverseFilesRecursively(system, file, maxDepth, null, visitor);
+    }
+
+    default void traverseFilesRecursively(
+            FileSystem system, FilePath file, int maxDepth, String nameGlob, Predicate<FileEntry> visitor)
+            throws Exception {
+        traverseFilesPerDirectory(system, file, maxDepth, nameGlob, visitor);
+    }
+
+    default boolean traverseFilesPerDirectory(
+            FileSystem system, FilePath file, int maxDepth, String nameGlob, Predicate<FileEntry> visitor)
+            throws Exception {
+        var pattern = nameGlob != null ? Pattern.compile(GlobHelper.toRegex(nameGlob)) : null;
+        return traverseFilesPerDirectory(system, file, maxDepth, pattern, visitor);
+    }
+
+    private boolean traverseFilesPerDirectory(
+            FileSystem system, FilePath file, int maxDepth, Pattern namePattern, Predicate<FileEntry> visitor)
+            throws Exception {
+        if (maxDepth <= 0) {
+            return true;
+        }
+
         List<FileEntry> base;
         try (var filesStream = listFiles(system, file)) {
             base = filesStream.toList();
         }
 
-        if (base.size() != 1) {
-            for (FileEntry fileEntry : base) {
-                // False will cancel the whole traversal
-                if (!visitor.test(fileEntry)) {
-                    return;
-                }
-
-                if (fileEntry.getKind() != FileKind.DIRECTORY) {
-                    continue;
-                }
-
-                traverseFilesRecursively(system, fileEntry.getPath(), visitor);
+        for (FileEntry fileEntry : base) {
+            // False will cancel the whole traversal
+            var matches = namePattern == null
+                    || namePattern.matcher(fileEntry.getName()).matches();
+            if (matches && !visitor.test(fileEntry)) {
+                return false;
             }
-            return;
-        }
 
-        // Optimize this call to use tail recursion if possible
+            if (fileEntry.getKind() != FileKind.DIRECTORY) {
+                continue;
+            }
 
-        if (!visitor.test(base.getFirst()) || base.getFirst().getKind() != FileKind.DIRECTORY) {
-            return;
+            if (!traverseFilesPerDirectory(system, fileEntry.getPath(), maxDepth - 1, namePattern, visitor)) {
+                return false;
+            }
         }
-
-        traverseFilesRecursively(system, base.getFirst().getPath(), visitor);
+        return true;
     }
 
     List<FilePath> listRoots() throws Exception;
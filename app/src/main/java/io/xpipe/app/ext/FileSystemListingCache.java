@@ -0,0 +1,89 @@
+package io.xpipe.app.ext;
+
+import io.xpipe.core.FilePath;
+
+import java.time.Instant;
+import java.util.*;
+
+public class FileSystemListingCache {
+
+    private static final int MAX_DIRECTORIES = 64;
+    private static final int MAX_ENTRIES = 100000;
+
+    private static final Set<FileSystemListingCache> CACHES =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final Map<FilePath, Listing> listings = new LinkedHashMap<>(16, 0.75f, true);
+    private int entryCount;
+
+    public FileSystemListingCache() {
+        CACHES.add(this);
+    }
+
+    public static void invalidateAll(FilePath file) {
+        // Other file system instances might show the same system, e.g. in another tab
+        // We can't tell which ones do, so just invalidate the path everywhere
+        List<FileSystemListingCache> caches;
+        synchronized (CACHES) {
+            caches = new ArrayList<>(CACHES);
+        }
+        caches.forEach(cache -> cache.invalidate(file));
+    }
+
+    private static FilePath key(FilePath dir) {
+        return dir.toDirectory();
+    }
+
+    public synchronized Optional<Listing> get(FilePath dir) {
+        if (dir == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(listings.get(key(dir)));
+    }
+
+    public synchronized void put(FilePath dir, Instant directoryDate, List<FileEntry> entries) {
+        if (dir == null || entries.size() > MAX_ENTRIES) {
+            return;
+        }
+
+        var old = listings.put(key(dir), new Listing(directoryDate, List.copyOf(entries)));
+        if (old != null) {
+            entryCount -= old.entries().size();
+        }
+        entryCount += entries.size();
+
+        var it = listings.entrySet().iterator();
+        while (it.hasNext() && (listings.size() > MAX_DIRECTORIES || entryCount > MAX_ENTRIES)) {
+            var eldest = it.next();
+            entryCount -= eldest.getValue().entries().size();
+            it.remove();
+        }
+    }
+
+    public synchronized void invalidate(FilePath file) {
+        if (file == null) {
+            return;
+        }
+
+        // The parent listing contains the file and any cached listing below it might have changed
+        var parent = file.getParent();
+        var dir = key(file);
+        var it = listings.entrySet().iterator();
+        while (it.hasNext()) {
+            var e = it.next();
+            if ((parent != null && e.getKey().equals(key(parent)))
+                    || e.getKey().toString().startsWith(dir.toString())) {
+                entryCount -= e.getValue().entries().size();
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        listings.clear();
+        entryCount = 0;
+    }
+
+    public record Listing(Instant directoryDate, List<FileEntry> entries) {}
+}
@@ -9,6 +9,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -351,6 +352,20 @@ public class WrapperFileSystem implements FileSystem {
         return fs.getFileInfo(file);
     }
 
+    @Override
+    public List<Optional<FileEntry>> getFileInfos(List<FilePath> files) throws Exception {
+        if (!runningCheck.get()) {
+            return files.stream().map(file -> Optional.<FileEntry>empty()).toList();
+        }
+
+        return fs.getFileInfos(files);
+    }
+
+    @Override
+    public Optional<FileSystemListingCache> getListingCache() {
+        return fs.getListingCache();
+    }
+
     @Override
     public Stream<FileEntry> listFiles(FileSystem system, FilePath file) throws Exception {
         if (!runningCheck.get()) {
@@ -360,6 +375,17 @@ public class WrapperFileSystem implements FileSystem {
         return fs.listFiles(system, file);
     }
 
+    @Override
+    public void traverseFilesRecursively(
+            FileSystem system, FilePath file, int maxDepth, String nameGlob, Predicate<FileEntry> visitor)
+            throws Exception {
+        if (!runningCheck.get()) {
+            return;
+        }
+
+        fs.traverseFilesRecursively(system, file, maxDepth, nameGlob, visitor);
+    }
+
     @Override
     public List<FilePath> listRoots() throws Exception {
         if (!runningCheck.get()) {
@@ -5,7 +5,7 @@ import io.xpipe.app.ext.DataStore;
 import io.xpipe.app.storage.DataStorage;
 import io.xpipe.app.storage.DataStoreEntry;
 import io.xpipe.app.storage.DataStoreEntryRef;
-import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.app.util.FanOutExecutor;
 import io.xpipe.core.JacksonMapper;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -15,7 +15,6 @@ import lombok.experimental.SuperBuilder;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 
 @SuperBuilder
@@ -51,19 +50,8 @@ public final class BatchStoreAction<T extends DataStore> extends SerializableAct
                 }
             }
         } else {
-            var latch = new CountDownLatch(actions.size());
-            for (AbstractAction action : actions) {
-                ThreadHelper.runAsync(() -> {
-                    // Don't confirm twice
-                    action.executeSyncImpl(false);
-                    latch.countDown();
-                });
-            }
-
-            try {
-                latch.await();
-            } catch (InterruptedException ignored) {
-            }
+            // Don't confirm twice
+            FanOutExecutor.ofDefaults().runAll(actions, (action, handle) -> action.executeSyncImpl(false));
         }
     }
 
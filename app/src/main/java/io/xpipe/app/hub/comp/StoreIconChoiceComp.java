@@ -3,7 +3,6 @@ package io.xpipe.app.hub.comp;
 import io.xpipe.app.comp.base.*;
 import io.xpipe.app.core.AppFontSizes;
 import io.xpipe.app.core.AppI18n;
-import io.xpipe.app.core.AppImages;
 import io.xpipe.app.icon.SystemIcon;
 import io.xpipe.app.icon.SystemIconManager;
 import io.xpipe.app.platform.LabelGraphic;
@@ -62,7 +61,7 @@ public class StoreIconChoiceComp extends ModalOverlayContentComp {
         if (modalOverlay != null) {
             ThreadHelper.runFailableAsync(() -> {
                 BooleanScope.executeExclusive(busy, () -> {
-                    SystemIconManager.loadAllAvailableIconImages();
+                    SystemIconManager.loadAllAvailableIconPacks();
                 });
             });
         }
@@ -150,7 +149,16 @@ public class StoreIconChoiceComp extends ModalOverlayContentComp {
         loading.prefHeight(50);
         loading.show(busy);
 
-        var vbox = new VerticalComp(List.of(text, loading, refreshButton)).spacing(25);
+        var progress = new LabelComp(Bindings.createStringBinding(
+                () -> {
+                    var value = SystemIconManager.getRebuildProgress().get();
+                    return value >= 0 ? (int) (value * 100) + "%" : null;
+                },
+                PlatformThread.sync(SystemIconManager.getRebuildProgress())));
+        progress.style(Styles.TEXT_SUBTLE);
+        progress.show(busy);
+
+        var vbox = new VerticalComp(List.of(text, loading, progress, refreshButton)).spacing(25);
         vbox.apply(struc -> {
             struc.setAlignment(Pos.CENTER);
             struc.setPickOnBounds(false);
@@ -160,8 +168,7 @@ public class StoreIconChoiceComp extends ModalOverlayContentComp {
 
     private void updateData(TableView<List<SystemIcon>> table, String filterString) {
         var available = icons.stream()
-                .filter(systemIcon -> AppImages.hasImage(
-                        "icons/" + systemIcon.getSource().getId() + "/" + systemIcon.getId() + "-40.png"))
+                .filter(SystemIconManager::hasIconImage)
                 .sorted(Comparator.comparing(systemIcon -> systemIcon.getId()))
                 .collect(Collectors.toCollection(ArrayList::new));
         available.addFirst(new SystemIcon(null, "default"));
@@ -4,6 +4,8 @@ import io.xpipe.app.core.AppProperties;
 import io.xpipe.app.issue.ErrorEventFactory;
 import io.xpipe.app.issue.TrackEvent;
 import io.xpipe.app.prefs.AppPrefs;
+import io.xpipe.app.util.ThreadHelper;
+import io.xpipe.core.FailableRunnable;
 
 import com.github.weisj.jsvg.SVGDocument;
 import com.github.weisj.jsvg.SVGRenderingHints;
@@ -13,11 +15,16 @@ import org.apache.commons.io.FileUtils;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.*;
-import java.security.MessageDigest;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
 import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
 
@@ -26,7 +33,8 @@ public class SystemIconCache {
     private static final Path DIRECTORY =
             AppProperties.get().getDataDir().resolve("cache").resolve("icons").resolve("raster");
     private static final int[] sizes = new int[] {16, 24, 40, 80};
-    public static final int VERSION = 3;
+    public static final int VERSION = 5;
+    private static final String PACK_EXTENSION = ".pack";
 
     public static Path getDirectory(SystemIconSource source) {
         var target = DIRECTORY.resolve(source.getId());
@@ -44,7 +52,8 @@ public class SystemIconCache {
         }
     }
 
-    public static void rebuildCache(Map<SystemIconSource, SystemIconSourceData> all, int sourceHash) {
+    public static void rebuildCache(
+            Map<SystemIconSource, SystemIconSourceData> all, int sourceHash, DoubleConsumer progress) {
         try {
             var versionFile = DIRECTORY.resolve("version");
             var version =
@@ -61,145 +70,299 @@ public class SystemIconCache {
             var hashFile = DIRECTORY.resolve("sourcehash");
             Files.writeString(hashFile, String.valueOf(sourceHash));
 
-            for (var e : all.entrySet()) {
-                var target = DIRECTORY.resolve(e.getKey().getId());
-                Files.createDirectories(target);
-
-                Map<String, ImageColorScheme> colorSchemeMap = new HashMap<>();
-
-                var baseIcons = e.getValue().getIcons().stream()
-                        .filter(f -> f.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DEFAULT)
-                        .toList();
-                for (var icon : baseIcons) {
-                    var schemeFile = target.resolve(icon.getName() + ".scheme");
-                    if (refreshChecksum(icon.getFile(), target, icon.getName(), false)) {
-                        if (Files.exists(schemeFile)) {
-                            var scheme = Files.readString(schemeFile);
-                            var schemeValue = ImageColorScheme.valueOf(scheme.toUpperCase());
-                            colorSchemeMap.put(icon.getName(), schemeValue);
-                            continue;
-                        }
+            var start = System.currentTimeMillis();
+            var total = all.values().stream()
+                    .mapToInt(data -> data.getIcons().size())
+                    .sum();
+            var done = new AtomicInteger();
+            var rasterized = new AtomicInteger();
+            // Rasterizing is CPU bound, so there is no point in using more threads than available cores
+            var threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+            try (var executor = Executors.newFixedThreadPool(threads, r -> {
+                return ThreadHelper.createPlatformThread("icon rasterizer", true, r);
+            })) {
+                for (var e : all.entrySet()) {
+                    var target = getDirectory(e.getKey());
+                    Files.createDirectories(target);
+
+                    // Unchanged icons are copied over from the current pack
+                    var existing = openPack(e.getKey()).orElse(null);
+                    Map<String, ImageColorScheme> colorSchemeMap = new ConcurrentHashMap<>();
+                    Path packFile;
+                    try (var writer = new SystemIconPack.Writer(target)) {
+                        var baseIcons = e.getValue().getIcons().stream()
+                                .filter(f -> f.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DEFAULT)
+                                .toList();
+                        var darkIconNames = e.getValue().getIcons().stream()
+                                .filter(f -> f.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DARK)
+                                .map(f -> f.getName())
+                                .collect(Collectors.toSet());
+                        var baseJobs = baseIcons.stream()
+                                .<FailableRunnable<Exception>>map(icon -> () -> {
+                                    if (rasterizeBaseIcon(icon, existing, writer, colorSchemeMap, darkIconNames)) {
+                                        rasterized.incrementAndGet();
+                                    }
+                                })
+                                .toList();
+                        runAll(executor, baseJobs, done, total, progress);
+
+                        // The variants depend on the color schemes of the base icons
+                        var variantIcons = e.getValue().getIcons().stream()
+                                .filter(f -> f.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DARK
+                                        || f.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.LIGHT)
+                                .toList();
+                        var variantJobs = variantIcons.stream()
+                                .<FailableRunnable<Exception>>map(icon -> () -> {
+                                    if (rasterizeVariantIcon(icon, existing, writer, colorSchemeMap)) {
+                                        rasterized.incrementAndGet();
+                                    }
+                                })
+                                .toList();
+                        runAll(executor, variantJobs, done, total, progress);
+
+                        // A pack that is still mapped can't be replaced on Windows, so every rebuild creates a new file
+                        packFile = target.resolve(System.currentTimeMillis() + PACK_EXTENSION);
+                        writer.finish(packFile);
                     }
+                    deleteOutdatedPacks(target, packFile);
+                }
+            }
 
-                    var scheme = rasterizeSizes(icon.getFile(), target, icon.getName(), false);
-                    if (scheme == ImageColorScheme.TRANSPARENT) {
-                        var message = "Failed to rasterize icon "
-                                + icon.getFile().getFileName().toString() + ": Rasterized image is transparent";
-                        ErrorEventFactory.fromMessage(message).omit().expected().handle();
-                        continue;
+            TrackEvent.withDebug("Rebuilt icon cache")
+                    .tag("icons", total)
+                    .tag("rasterized", rasterized.get())
+                    .tag("threads", threads)
+                    .tag("duration", System.currentTimeMillis() - start)
+                    .handle();
+        } catch (Exception e) {
+            ErrorEventFactory.fromThrowable(e).handle();
+        }
+    }
+
+    private static void runAll(
+            ExecutorService executor,
+            List<FailableRunnable<Exception>> jobs,
+            AtomicInteger done,
+            int total,
+            DoubleConsumer progress)
+            throws Exception {
+        var futures = new ArrayList<Future<?>>(jobs.size());
+        for (var job : jobs) {
+            futures.add(executor.submit(() -> {
+                try {
+                    job.run();
+                    return null;
+                } finally {
+                    // Keep the reported progress monotonic across threads
+                    synchronized (done) {
+                        var count = done.incrementAndGet();
+                        if (progress != null) {
+                            progress.accept(total > 0 ? (double) count / total : 1.0);
+                        }
                     }
+                }
+            }));
+        }
 
-                    colorSchemeMap.put(icon.getName(), scheme);
-                    Files.writeString(schemeFile, scheme.name().toLowerCase(Locale.ROOT));
+        // Wait for all jobs to finish before reporting the first failure
+        Exception failure = null;
+        for (var future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause() instanceof Exception cause ? cause : ex;
                 }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 
-                var darkIconNames = e.getValue().getIcons().stream()
-                        .filter(f -> f.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DARK)
-                        .map(f -> f.getName())
-                        .collect(Collectors.toSet());
-                var darkAvailableIcons = e.getValue().getIcons().stream()
-                        .filter(f -> f.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.DARK)
-                        .toList();
-                for (var icon : darkAvailableIcons) {
-                    var existingBaseScheme = colorSchemeMap.get(icon.getName());
-                    var generateDarkIcon = existingBaseScheme == null
-                            || existingBaseScheme == ImageColorScheme.DARK
-                            || AppPrefs.get().preferMonochromeIcons().get();
-
-                    if (!generateDarkIcon
-                            && !AppPrefs.get().preferMonochromeIcons().get()) {
-                        delete(target, icon.getName(), true);
-                        continue;
-                    }
+    public static Optional<SystemIconPack> openPack(SystemIconSource source) {
+        var dir = getDirectory(source);
+        if (!Files.isDirectory(dir)) {
+            return Optional.empty();
+        }
 
-                    if (generateDarkIcon) {
-                        if (refreshChecksum(icon.getFile(), target, icon.getName(), true)) {
-                            continue;
-                        }
+        try (var list = Files.list(dir)) {
+            var latest = list.filter(p -> p.getFileName().toString().endsWith(PACK_EXTENSION))
+                    .max(Comparator.comparing(p -> p.getFileName().toString()));
+            if (latest.isEmpty()) {
+                return Optional.empty();
+            }
 
-                        var scheme = rasterizeSizes(icon.getFile(), target, icon.getName(), true);
-                        if (scheme == ImageColorScheme.TRANSPARENT) {
-                            var message = "Failed to rasterize icon "
-                                    + icon.getFile().getFileName().toString() + ": Rasterized image is transparent";
-                            ErrorEventFactory.fromMessage(message)
-                                    .omit()
-                                    .expected()
-                                    .handle();
-                        }
-                    }
-                }
+            return Optional.of(SystemIconPack.open(latest.get()));
+        } catch (IOException ex) {
+            ErrorEventFactory.fromThrowable(ex).omit().expected().handle();
+            return Optional.empty();
+        }
+    }
 
-                // Generate dark icons manually if there is none provided by inverting the colors
-                for (var icon : baseIcons) {
-                    var existingBaseScheme = colorSchemeMap.get(icon.getName());
-                    var generateDarkModeInverse =
-                            existingBaseScheme == ImageColorScheme.DARK && !darkIconNames.contains(icon.getName());
-                    if (generateDarkModeInverse) {
-                        if (refreshChecksum(icon.getFile(), target, icon.getName(), true)) {
-                            continue;
-                        }
+    private static void deleteOutdatedPacks(Path dir, Path current) throws IOException {
+        try (var list = Files.list(dir)) {
+            for (var file : list.toList()) {
+                if (file.equals(current)) {
+                    continue;
+                }
 
-                        rasterizeSizesInverted(icon.getFile(), target, icon.getName(), true);
-                    }
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Can happen if the file is still mapped, it will be deleted on the next rebuild
                 }
+            }
+        }
+    }
 
-                if (AppPrefs.get().preferMonochromeIcons().get()) {
-                    var lightAvailableIcons = e.getValue().getIcons().stream()
-                            .filter(f -> f.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.LIGHT)
-                            .toList();
-                    for (var icon : lightAvailableIcons) {
-                        if (refreshChecksum(icon.getFile(), target, icon.getName(), false)) {
-                            continue;
-                        }
+    private static boolean rasterizeBaseIcon(
+            SystemIconSourceFile icon,
+            SystemIconPack existing,
+            SystemIconPack.Writer writer,
+            Map<String, ImageColorScheme> colorSchemeMap,
+            Set<String> darkIconNames)
+            throws Exception {
+        // Might have been deleted at some point
+        if (!Files.exists(icon.getFile())) {
+            return false;
+        }
 
-                        rasterizeSizes(icon.getFile(), target, icon.getName(), false);
-                    }
+        var checksum = computeChecksum(icon.getFile());
+        var existingEntry = getUpToDateEntry(existing, icon.getName(), false, checksum)
+                .filter(entry -> entry.colorScheme() != null);
+        Map<Integer, BufferedImage> images = null;
+        ImageColorScheme scheme;
+        if (existingEntry.isPresent()) {
+            scheme = ImageColorScheme.valueOf(existingEntry.get().colorScheme().toUpperCase());
+            writer.copy(existing, icon.getName(), false);
+        } else {
+            images = rasterizeSizes(icon.getFile());
+            scheme = determineColorScheme(images);
+            if (scheme == ImageColorScheme.TRANSPARENT) {
+                var message = "Failed to rasterize icon "
+                        + icon.getFile().getFileName().toString() + ": Rasterized image is transparent";
+                ErrorEventFactory.fromMessage(message).omit().expected().handle();
+                return true;
+            }
+
+            writer.put(icon.getName(), false, checksum, scheme.name().toLowerCase(Locale.ROOT), encode(images));
+        }
+        colorSchemeMap.put(icon.getName(), scheme);
+
+        // Generate dark icons manually if there is none provided by inverting the colors
+        var generateDarkModeInverse = scheme == ImageColorScheme.DARK && !darkIconNames.contains(icon.getName());
+        if (generateDarkModeInverse) {
+            if (getUpToDateEntry(existing, icon.getName(), true, checksum).isPresent()) {
+                writer.copy(existing, icon.getName(), true);
+            } else {
+                if (images == null) {
+                    images = rasterizeSizes(icon.getFile());
                 }
+
+                var inverted = new LinkedHashMap<Integer, BufferedImage>();
+                images.forEach((size, image) -> inverted.put(size, invert(image)));
+                writer.put(icon.getName(), true, checksum, null, encode(inverted));
             }
-        } catch (Exception e) {
-            ErrorEventFactory.fromThrowable(e).handle();
         }
+
+        return images != null;
     }
 
-    private static boolean refreshChecksum(Path source, Path dir, String name, boolean dark) throws Exception {
-        // Might have been deleted at some point
-        if (!Files.exists(source)) {
-            return true;
+    private static boolean rasterizeVariantIcon(
+            SystemIconSourceFile icon,
+            SystemIconPack existing,
+            SystemIconPack.Writer writer,
+            Map<String, ImageColorScheme> colorSchemeMap)
+            throws Exception {
+        if (!Files.exists(icon.getFile())) {
+            return false;
         }
 
-        var md5Name = name + (dark ? "-dark" : "") + ".md5";
-        var bytes = Files.readAllBytes(source);
-        var md = MessageDigest.getInstance("MD5");
-        md.update(bytes);
-        md.update(String.valueOf(AppPrefs.get().preferMonochromeIcons().get()).getBytes());
-        var digest = md.digest();
-        var md5File = dir.resolve(md5Name);
-        if (Files.exists(md5File) && Arrays.equals(Files.readAllBytes(md5File), digest)) {
+        var monochrome = AppPrefs.get().preferMonochromeIcons().get();
+        var checksum = computeChecksum(icon.getFile());
+        var existingBaseScheme = colorSchemeMap.get(icon.getName());
+        if (icon.getColorSchemeData() == SystemIconSourceFile.ColorSchemeData.LIGHT) {
+            if (!monochrome) {
+                return false;
+            }
+
+            if (getUpToDateEntry(existing, icon.getName(), false, checksum).isPresent()) {
+                writer.copy(existing, icon.getName(), false);
+                return false;
+            }
+
+            // Keep the base color scheme as the light variant replaces the base icon images
+            var images = rasterizeSizes(icon.getFile());
+            var scheme = existingBaseScheme != null ? existingBaseScheme.name().toLowerCase(Locale.ROOT) : null;
+            writer.put(icon.getName(), false, checksum, scheme, encode(images));
             return true;
-        } else {
-            Files.write(md5File, digest);
+        }
+
+        var generateDarkIcon =
+                existingBaseScheme == null || existingBaseScheme == ImageColorScheme.DARK || monochrome;
+        if (!generateDarkIcon) {
+            return false;
+        }
+
+        if (getUpToDateEntry(existing, icon.getName(), true, checksum).isPresent()) {
+            writer.copy(existing, icon.getName(), true);
             return false;
         }
+
+        var images = rasterizeSizes(icon.getFile());
+        if (determineColorScheme(images) == ImageColorScheme.TRANSPARENT) {
+            var message = "Failed to rasterize icon "
+                    + icon.getFile().getFileName().toString() + ": Rasterized image is transparent";
+            ErrorEventFactory.fromMessage(message).omit().expected().handle();
+            return true;
+        }
+
+        writer.put(icon.getName(), true, checksum, null, encode(images));
+        return true;
+    }
+
+    private static String computeChecksum(Path source) throws IOException {
+        // The file size and modification date are enough to detect changes without reading the whole file
+        var attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        return attributes.size() + ":" + attributes.lastModifiedTime().toMillis() + ":"
+                + AppPrefs.get().preferMonochromeIcons().get();
+    }
+
+    private static Optional<SystemIconPack.Entry> getUpToDateEntry(
+            SystemIconPack existing, String name, boolean dark, String checksum) {
+        if (existing == null) {
+            return Optional.empty();
+        }
+
+        return existing.get(name, dark).filter(entry -> checksum.equals(entry.checksum()));
+    }
+
+    private static Map<Integer, byte[]> encode(Map<Integer, BufferedImage> images) throws IOException {
+        var encoded = new LinkedHashMap<Integer, byte[]>();
+        for (var e : images.entrySet()) {
+            var out = new ByteArrayOutputStream();
+            ImageIO.write(e.getValue(), "png", out);
+            encoded.put(e.getKey(), out.toByteArray());
+        }
+        return encoded;
     }
 
-    private static ImageColorScheme rasterizeSizes(Path path, Path dir, String name, boolean dark) {
-        TrackEvent.trace("Rasterizing image " + path.getFileName().toString());
+    private static Map<Integer, BufferedImage> rasterizeSizes(Path path) {
+        TrackEvent.trace(() -> "Rasterizing image " + path.getFileName().toString());
+        var images = new LinkedHashMap<Integer, BufferedImage>();
         try {
-            ImageColorScheme c = null;
+            // Parsing is the expensive part, so render all sizes from the same document
+            SVGLoader loader = new SVGLoader();
+            URL svgUrl = path.toUri().toURL();
+            SVGDocument svgDocument = loader.load(svgUrl);
+            if (svgDocument == null) {
+                return images;
+            }
+
             for (var size : sizes) {
-                var image = rasterize(path, size);
-                if (image == null) {
-                    continue;
-                }
-                if (c == null) {
-                    c = determineColorScheme(image);
-                    if (c == ImageColorScheme.TRANSPARENT) {
-                        return ImageColorScheme.TRANSPARENT;
-                    }
-                }
-                write(dir, name, dark, size, image);
+                images.put(size, rasterize(svgDocument, size));
             }
-            return c != null ? c : ImageColorScheme.TRANSPARENT;
         } catch (Exception ex) {
             var message = "Failed to rasterize icon icon " + path.getFileName().toString() + ": " + ex.getMessage();
             ErrorEventFactory.fromThrowable(ex)
@@ -207,38 +370,12 @@ public class SystemIconCache {
                     .omit()
                     .expected()
                     .handle();
-            return ImageColorScheme.TRANSPARENT;
+            images.clear();
         }
+        return images;
     }
 
-    private static void rasterizeSizesInverted(Path path, Path dir, String name, boolean dark) throws IOException {
-        try {
-            for (var size : sizes) {
-                var image = rasterize(path, size);
-                if (image == null) {
-                    continue;
-                }
-
-                var invert = invert(image);
-                write(dir, name, dark, size, invert);
-            }
-        } catch (Exception ex) {
-            if (ex instanceof IOException) {
-                throw ex;
-            }
-
-            ErrorEventFactory.fromThrowable(ex).omit().expected().handle();
-        }
-    }
-
-    private static BufferedImage rasterize(Path path, int px) throws IOException {
-        SVGLoader loader = new SVGLoader();
-        URL svgUrl = path.toUri().toURL();
-        SVGDocument svgDocument = loader.load(svgUrl);
-        if (svgDocument == null) {
-            return null;
-        }
-
+    private static BufferedImage rasterize(SVGDocument svgDocument, int px) {
         BufferedImage image = new BufferedImage(px, px, BufferedImage.TYPE_INT_ARGB);
         Graphics2D g = image.createGraphics();
         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -250,20 +387,6 @@ public class SystemIconCache {
         return image;
     }
 
-    private static BufferedImage write(Path dir, String name, boolean dark, int px, BufferedImage image)
-            throws IOException {
-        var out = dir.resolve(name + "-" + px + (dark ? "-dark" : "") + ".png");
-        ImageIO.write(image, "png", out.toFile());
-        return image;
-    }
-
-    private static void delete(Path dir, String name, boolean dark) throws IOException {
-        for (var px : sizes) {
-            var out = dir.resolve(name + "-" + px + (dark ? "-dark" : "") + ".png");
-            Files.deleteIfExists(out);
-        }
-    }
-
     private static BufferedImage invert(BufferedImage image) {
         var buffer = new BufferedImage(image.getWidth(), image.getHeight(), java.awt.image.BufferedImage.TYPE_INT_ARGB);
         for (int y = 0; y < image.getHeight(); y++) {
@@ -279,7 +402,12 @@ public class SystemIconCache {
         return buffer;
     }
 
-    private static ImageColorScheme determineColorScheme(BufferedImage image) {
+    private static ImageColorScheme determineColorScheme(Map<Integer, BufferedImage> images) {
+        if (images.isEmpty()) {
+            return ImageColorScheme.TRANSPARENT;
+        }
+
+        var image = images.values().iterator().next();
         var transparent = true;
         var counter = 0;
         var mean = 0.0;
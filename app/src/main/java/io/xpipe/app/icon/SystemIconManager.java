@@ -7,9 +7,14 @@ import io.xpipe.app.prefs.AppPrefs;
 import io.xpipe.app.storage.DataStorage;
 import io.xpipe.app.storage.DataStoreEntry;
 
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SystemIconManager {
 
@@ -19,16 +24,20 @@ public class SystemIconManager {
     private static final Set<SystemIcon> loadedIconImages = new HashSet<>();
     private static final Map<SystemIconSource, SystemIconSourceData> LOADED_SOURCES = new HashMap<>();
     private static final Set<SystemIcon> ICONS = new HashSet<>();
+    private static final Map<SystemIconSource, Optional<SystemIconPack>> LOADED_PACKS = new ConcurrentHashMap<>();
+    private static final DoubleProperty rebuildProgress = new SimpleDoubleProperty(-1);
     private static int cacheSourceHash;
     private static int sourceHash;
 
     public static boolean hasLoadedAnyImages() {
-        var available = getIcons().stream()
-                .anyMatch(systemIcon -> AppImages.hasImage(
-                        "icons/" + systemIcon.getSource().getId() + "/" + systemIcon.getId() + "-40.png"));
+        var available = getIcons().stream().anyMatch(SystemIconManager::hasIconImage);
         return available;
     }
 
+    public static ReadOnlyDoubleProperty getRebuildProgress() {
+        return rebuildProgress;
+    }
+
     public static boolean isCacheOutdated() {
         return cacheSourceHash == 0 || sourceHash != cacheSourceHash;
     }
@@ -78,18 +87,26 @@ public class SystemIconManager {
             return id;
         }
 
-        var dir = SystemIconCache.getDirectory(icon.getSource());
+        var pack = getPack(icon.getSource());
+        if (pack.isEmpty()) {
+            return id;
+        }
+
+        // Images are only decoded from the pack once they are needed
         var res = !allRes
                 ? List.of(40)
                 : AppDisplayScale.hasOnlyDefaultDisplayScale() ? List.of(16, 24, 40) : List.of(16, 24, 40, 80);
-        var files = new ArrayList<Path>();
         for (Integer re : res) {
-            files.add(dir.resolve(icon.getId() + "-" + re + ".png"));
-            files.add(dir.resolve(icon.getId() + "-" + re + "-dark.png"));
-        }
-        for (var file : files) {
-            if (Files.isRegularFile(file)) {
-                AppImages.loadImage(file, "icons/" + icon.getSource().getId() + "/" + file.getFileName());
+            for (var dark : List.of(false, true)) {
+                var key = "icons/" + icon.getSource().getId() + "/" + icon.getId() + "-" + re + (dark ? "-dark" : "")
+                        + ".png";
+                if (AppImages.hasImage(key)) {
+                    continue;
+                }
+
+                pack.get().getImageBytes(icon.getId(), dark, re).ifPresent(bytes -> {
+                    AppImages.loadImage(bytes, key);
+                });
             }
         }
 
@@ -99,6 +116,16 @@ public class SystemIconManager {
         return id;
     }
 
+    public static boolean hasIconImage(SystemIcon icon) {
+        return getPack(icon.getSource())
+                .map(pack -> pack.hasImage(icon.getId(), false, 40))
+                .orElse(false);
+    }
+
+    private static Optional<SystemIconPack> getPack(SystemIconSource source) {
+        return LOADED_PACKS.computeIfAbsent(source, SystemIconCache::openPack);
+    }
+
     public static Optional<SystemIcon> getIcon(String id) {
         var split = id.split("/");
         if (split.length == 2) {
@@ -189,14 +216,7 @@ public class SystemIconManager {
     private static synchronized void reloadImages() {
         AppImages.remove(s -> s.startsWith("icons/"));
         loadedIconImages.clear();
-
-        try {
-            for (var loadedIconImage : ICONS) {
-                getAndLoadIconFile(loadedIconImage, false);
-            }
-        } catch (Exception e) {
-            ErrorEventFactory.fromThrowable(e).handle();
-        }
+        LOADED_PACKS.clear();
     }
 
     public static synchronized void rebuild() throws Exception {
@@ -210,7 +230,12 @@ public class SystemIconManager {
         }
         reloadSources();
         sourceHash = calculateSourceHash();
-        SystemIconCache.rebuildCache(LOADED_SOURCES, sourceHash);
+        try {
+            rebuildProgress.set(0);
+            SystemIconCache.rebuildCache(LOADED_SOURCES, sourceHash, rebuildProgress::set);
+        } finally {
+            rebuildProgress.set(-1);
+        }
         cacheSourceHash = sourceHash;
         reloadImages();
     }
@@ -221,9 +246,9 @@ public class SystemIconManager {
         sourceHash = calculateSourceHash();
     }
 
-    public static synchronized void loadAllAvailableIconImages() {
-        for (SystemIcon icon : getIcons()) {
-            getAndLoadIconFile(icon, false);
+    public static synchronized void loadAllAvailableIconPacks() {
+        for (var source : getEffectiveSources()) {
+            getPack(source);
         }
     }
 
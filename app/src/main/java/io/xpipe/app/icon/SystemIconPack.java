@@ -0,0 +1,171 @@
+package io.xpipe.app.icon;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+public class SystemIconPack {
+
+    private static final int MAGIC = 0x58504943;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    private final ByteBuffer buffer;
+    private final long dataStart;
+    private final Map<String, Entry> entries;
+
+    private SystemIconPack(ByteBuffer buffer, long dataStart, Map<String, Entry> entries) {
+        this.buffer = buffer;
+        this.dataStart = dataStart;
+        this.entries = entries;
+    }
+
+    public static String key(String name, boolean dark) {
+        return name + (dark ? "-dark" : "");
+    }
+
+    public static SystemIconPack open(Path file) throws IOException {
+        // The mapping stays valid after the channel is closed
+        ByteBuffer buffer;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Invalid icon pack " + file);
+        }
+
+        var indexLength = buffer.getInt(8);
+        var index = new byte[indexLength];
+        buffer.get(HEADER_SIZE, index);
+        var entries = new HashMap<String, Entry>();
+        try (var in = new DataInputStream(new ByteArrayInputStream(index))) {
+            var count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                var key = in.readUTF();
+                var checksum = in.readUTF();
+                var colorScheme = in.readUTF();
+                var sizeCount = in.readInt();
+                var images = new HashMap<Integer, Blob>();
+                for (int j = 0; j < sizeCount; j++) {
+                    images.put(in.readInt(), new Blob(in.readLong(), in.readInt()));
+                }
+                entries.put(key, new Entry(checksum, colorScheme.isEmpty() ? null : colorScheme, images));
+            }
+        }
+        return new SystemIconPack(buffer, HEADER_SIZE + indexLength, entries);
+    }
+
+    public Optional<Entry> get(String name, boolean dark) {
+        return Optional.ofNullable(entries.get(key(name, dark)));
+    }
+
+    public boolean hasImage(String name, boolean dark, int px) {
+        var entry = entries.get(key(name, dark));
+        return entry != null && entry.images().containsKey(px);
+    }
+
+    public Optional<byte[]> getImageBytes(String name, boolean dark, int px) {
+        var entry = entries.get(key(name, dark));
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        var blob = entry.images().get(px);
+        if (blob == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(read(blob));
+    }
+
+    private byte[] read(Blob blob) {
+        // Absolute reads don't modify the buffer state and can be used from multiple threads
+        var bytes = new byte[blob.length()];
+        buffer.get(Math.toIntExact(dataStart + blob.offset()), bytes);
+        return bytes;
+    }
+
+    public record Blob(long offset, int length) {}
+
+    public record Entry(String checksum, String colorScheme, Map<Integer, Blob> images) {}
+
+    public static class Writer implements Closeable {
+
+        private final Path dataFile;
+        private final OutputStream data;
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+        private long position;
+
+        public Writer(Path dir) throws IOException {
+            // Image data is buffered on disk, so the rendered images don't have to be kept in memory
+            this.dataFile = Files.createTempFile(dir, "pack", ".tmp");
+            this.data = new BufferedOutputStream(Files.newOutputStream(dataFile));
+        }
+
+        public synchronized void put(
+                String name, boolean dark, String checksum, String colorScheme, Map<Integer, byte[]> images)
+                throws IOException {
+            var blobs = new LinkedHashMap<Integer, Blob>();
+            for (var e : images.entrySet()) {
+                data.write(e.getValue());
+                blobs.put(e.getKey(), new Blob(position, e.getValue().length));
+                position += e.getValue().length;
+            }
+            entries.put(key(name, dark), new Entry(checksum, colorScheme, blobs));
+        }
+
+        public void copy(SystemIconPack pack, String name, boolean dark) throws IOException {
+            var entry = pack.entries.get(key(name, dark));
+            if (entry == null) {
+                return;
+            }
+
+            // Copy the encoded images as is without decoding them
+            var images = new LinkedHashMap<Integer, byte[]>();
+            entry.images().forEach((px, blob) -> images.put(px, pack.read(blob)));
+            put(name, dark, entry.checksum(), entry.colorScheme(), images);
+        }
+
+        public synchronized void finish(Path target) throws IOException {
+            data.close();
+
+            var indexBytes = new ByteArrayOutputStream();
+            try (var out = new DataOutputStream(indexBytes)) {
+                out.writeInt(entries.size());
+                for (var e : entries.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeUTF(e.getValue().checksum() != null ? e.getValue().checksum() : "");
+                    out.writeUTF(e.getValue().colorScheme() != null ? e.getValue().colorScheme() : "");
+                    out.writeInt(e.getValue().images().size());
+                    for (var image : e.getValue().images().entrySet()) {
+                        out.writeInt(image.getKey());
+                        out.writeLong(image.getValue().offset());
+                        out.writeInt(image.getValue().length());
+                    }
+                }
+            }
+
+            var temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(indexBytes.size());
+                indexBytes.writeTo(out);
+                Files.copy(dataFile, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.close();
+            Files.deleteIfExists(dataFile);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import lombok.Singular;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Builder
@@ -16,6 +17,7 @@ public class TrackEvent {
     private final Instant instant = Instant.now();
     private String type;
     private String message;
+    private Supplier<String> messageSupplier;
 
     @Singular
     private Map<String, Object> tags;
@@ -39,6 +41,10 @@ public class TrackEvent {
         return builder().type("trace").message(message);
     }
 
+    public static TrackEventBuilder withTrace(Supplier<String> message) {
+        return builder().type("trace").messageSupplier(message);
+    }
+
     public static void info(String message) {
         builder().type("info").message(message).build().handle();
     }
@@ -55,10 +61,18 @@ public class TrackEvent {
         builder().type("debug").message(message).build().handle();
     }
 
+    public static void debug(Supplier<String> message) {
+        builder().type("debug").messageSupplier(message).build().handle();
+    }
+
     public static void trace(String message) {
         builder().type("trace").message(message).build().handle();
     }
 
+    public static void trace(Supplier<String> message) {
+        builder().type("trace").messageSupplier(message).build().handle();
+    }
+
     public static TrackEventBuilder withError(String message) {
         return builder().type("error").message(message);
     }
@@ -71,8 +85,18 @@ public class TrackEvent {
         EventHandler.get().handle(this);
     }
 
+    public synchronized String getMessage() {
+        // Expensive messages are only computed once the event is actually logged
+        if (message == null && messageSupplier != null) {
+            message = messageSupplier.get();
+            messageSupplier = null;
+        }
+        return message;
+    }
+
     @Override
     public String toString() {
+        var message = getMessage();
         var s = new StringBuilder(message != null ? message : "");
         if (tags.size() > 0) {
             s.append(" {\n");
@@ -1,8 +1,11 @@
 package io.xpipe.app.prefs;
 
+import io.xpipe.app.beacon.AppBeaconMetrics;
 import io.xpipe.app.comp.BaseRegionBuilder;
+import io.xpipe.app.comp.RegionBuilder;
 import io.xpipe.app.comp.base.ButtonComp;
 import io.xpipe.app.comp.base.InputGroupComp;
+import io.xpipe.app.comp.base.ModalOverlay;
 import io.xpipe.app.comp.base.TextFieldComp;
 import io.xpipe.app.core.AppProperties;
 import io.xpipe.app.issue.TrackEvent;
@@ -10,15 +13,19 @@ import io.xpipe.app.platform.LabelGraphic;
 import io.xpipe.app.platform.OptionsBuilder;
 import io.xpipe.app.process.LocalShell;
 import io.xpipe.app.process.ProcessOutputException;
+import io.xpipe.app.util.GlobalTimer;
 import io.xpipe.app.util.ThreadHelper;
 
 import javafx.beans.property.SimpleStringProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.StackPane;
 
 import org.kordamp.ikonli.javafx.FontIcon;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class DeveloperCategory extends AppPrefsCategory {
 
@@ -37,6 +44,31 @@ public class DeveloperCategory extends AppPrefsCategory {
         return new LabelGraphic.IconGraphic("mdi2c-code-tags");
     }
 
+    private static void showTimerStatistics() {
+        var text = GlobalTimer.getStats().stream().map(Object::toString).collect(Collectors.joining("\n"));
+        showStatistics("timerStatistics", text);
+    }
+
+    private static void showApiStatistics() {
+        var text = AppBeaconMetrics.getSnapshots().entrySet().stream()
+                .map(e -> e.getKey() + ": " + e.getValue())
+                .collect(Collectors.joining("\n"));
+        showStatistics("apiStatistics", text);
+    }
+
+    private static void showStatistics(String titleKey, String text) {
+        var modal = ModalOverlay.of(
+                titleKey,
+                RegionBuilder.of(() -> {
+                            var area = new TextArea(text);
+                            area.setEditable(false);
+                            area.setPrefRowCount(Math.max(8, (int) text.lines().count()));
+                            return new StackPane(area);
+                        })
+                        .prefWidth(800));
+        modal.show();
+    }
+
     @Override
     protected BaseRegionBuilder<?, ?> create() {
         var prefs = AppPrefs.get();
@@ -79,6 +111,10 @@ public class DeveloperCategory extends AppPrefsCategory {
                     .addToggle(prefs.developerDisableSshTunnelGateways);
         }
         sub.nameAndDescription("shellCommandTest").addComp(runLocalCommand);
+        sub.nameAndDescription("timerStatistics")
+                .addComp(new ButtonComp(null, new FontIcon("mdi2t-timer-outline"), () -> showTimerStatistics()));
+        sub.nameAndDescription("apiStatistics")
+                .addComp(new ButtonComp(null, new FontIcon("mdi2a-api"), () -> showApiStatistics()));
         return new OptionsBuilder().title("developer").sub(sub).buildComp();
     }
 }
@@ -0,0 +1,166 @@
+package io.xpipe.app.process;
+
+import lombok.Getter;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+public class ShellBatch {
+
+    private final ShellControl shellControl;
+    private final List<Entry> entries = new ArrayList<>();
+
+    public ShellBatch(ShellControl shellControl) {
+        this.shellControl = shellControl;
+    }
+
+    public static boolean supportsFraming(ShellControl sc) {
+        return ShellDialects.isPosix(sc);
+    }
+
+    public Entry add(CommandControl command) {
+        return add(command, null);
+    }
+
+    public Entry add(CommandControl command, Consumer<Entry> onDone) {
+        var entry = new Entry(command, onDone);
+        entries.add(entry);
+        return entry;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public void execute() throws Exception {
+        var pending = entries.stream().filter(entry -> !entry.completed).toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Other shells would require their own framing, so just run the commands one after another there
+        if (pending.size() == 1 || !supportsFraming(shellControl) || !executeFramed(pending)) {
+            executeSequentially(pending);
+        }
+
+        for (var entry : pending) {
+            if (entry.onDone != null) {
+                entry.onDone.accept(entry);
+            }
+        }
+    }
+
+    private void executeSequentially(List<Entry> pending) throws Exception {
+        for (var entry : pending) {
+            if (entry.completed) {
+                continue;
+            }
+
+            try (var c = entry.command.start()) {
+                var r = c.readStdoutAndStderr();
+                c.close();
+                entry.complete(c.getExitCode(), r[0], r[1]);
+            }
+        }
+    }
+
+    private boolean executeFramed(List<Entry> pending) throws Exception {
+        // Every command runs in its own subshell so it can't affect the others
+        // Stderr is captured separately through a file descriptor swap
+        var marker = "xpipe-batch-" + UUID.randomUUID();
+        var script = new StringBuilder();
+        for (int i = 0; i < pending.size(); i++) {
+            var command = pending.get(i).command.getTerminalCommand().buildFull(shellControl);
+            script.append("printf '%s\\n' '").append(marker).append(" ").append(i).append("'; ");
+            script.append("{ __xpipe_err=$( ( ")
+                    .append(command)
+                    .append(" ) 2>&1 1>&3 3>&- ); __xpipe_exit=$?; } 3>&1; ");
+            script.append("printf '\\n%s %s\\n' '").append(marker).append(" exit' \"$__xpipe_exit\"; ");
+            script.append("printf '%s\\n%s\\n' \"$__xpipe_err\" '").append(marker).append(" end'; ");
+        }
+        script.append("unset __xpipe_err __xpipe_exit");
+
+        String out;
+        try (var c = shellControl.command(script.toString()).start()) {
+            out = c.readStdoutAndStderr()[0].replace("\r\n", "\n");
+        }
+
+        var position = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            var start = marker + " " + i + "\n";
+            var startIndex = out.indexOf(start, position);
+            if (startIndex == -1) {
+                // Nothing was printed at all, so the script could not be run in this shell
+                if (i == 0) {
+                    return false;
+                }
+
+                pending.get(i).complete(CommandControl.INTERNAL_ERROR_EXIT_CODE, "", "");
+                continue;
+            }
+
+            var exitMarker = "\n" + marker + " exit ";
+            var exitIndex = out.indexOf(exitMarker, startIndex + start.length());
+            var endMarker = "\n" + marker + " end\n";
+            var endIndex = exitIndex != -1 ? out.indexOf(endMarker, exitIndex) : -1;
+            if (endIndex == -1) {
+                pending.get(i).complete(CommandControl.INTERNAL_ERROR_EXIT_CODE, "", "");
+                continue;
+            }
+
+            var stdout = out.substring(startIndex + start.length(), exitIndex);
+            var exitLineEnd = out.indexOf("\n", exitIndex + exitMarker.length());
+            var exitCode = parseExitCode(out.substring(exitIndex + exitMarker.length(), exitLineEnd));
+            var stderr = out.substring(exitLineEnd + 1, endIndex);
+            pending.get(i).complete(exitCode, stdout, stderr);
+            position = endIndex + endMarker.length();
+        }
+        return true;
+    }
+
+    private static long parseExitCode(String s) {
+        try {
+            return Long.parseLong(s.strip());
+        } catch (NumberFormatException e) {
+            return CommandControl.UNASSIGNED_EXIT_CODE;
+        }
+    }
+
+    @Getter
+    public static class Entry {
+
+        private final CommandControl command;
+        private final Consumer<Entry> onDone;
+        private long exitCode = CommandControl.UNASSIGNED_EXIT_CODE;
+        private String output;
+        private String error;
+        private boolean completed;
+
+        private Entry(CommandControl command, Consumer<Entry> onDone) {
+            this.command = command;
+            this.onDone = onDone;
+        }
+
+        private void complete(long exitCode, String output, String error) {
+            this.exitCode = exitCode;
+            this.output = output != null ? output.strip() : "";
+            this.error = error != null ? error.strip() : "";
+            this.completed = true;
+        }
+
+        public boolean isSuccess() {
+            return completed && exitCode == 0;
+        }
+
+        public void checkOrThrow() throws ProcessOutputException {
+            if (!isSuccess()) {
+                throw ProcessOutputException.of(command.getDisplayCommand(), exitCode, error, output);
+            }
+        }
+
+        public String getOutputOrThrow() throws ProcessOutputException {
+            checkOrThrow();
+            return output;
+        }
+    }
+}
@@ -183,6 +183,10 @@ public interface ShellControl extends ProcessControl {
         command(command).discardOrThrow();
     }
 
+    default ShellBatch batch() {
+        return new ShellBatch(this);
+    }
+
     ShellControl withSecurityPolicy(ShellSecurityPolicy policy);
 
     ShellSecurityPolicy getEffectiveSecurityPolicy();
@@ -93,6 +93,16 @@ public interface ShellDialect {
 
     Stream<FileEntry> listFiles(FileSystem fs, ShellControl control, String path, boolean sub) throws Exception;
 
+    default Optional<Stream<FileEntry>> listFilesRecursively(
+            FileSystem fs, ShellControl control, String path, int maxDepth, String nameGlob) throws Exception {
+        return ShellFileListing.listRecursively(fs, control, path, maxDepth, nameGlob);
+    }
+
+    default Optional<Stream<FileEntry>> listFileInfos(FileSystem fs, ShellControl control, List<String> paths)
+            throws Exception {
+        return ShellFileListing.listInfos(fs, control, paths);
+    }
+
     Stream<String> listRoots(ShellControl control) throws Exception;
 
     String getPauseCommand();
@@ -63,6 +63,18 @@ public class ShellDialects {
         return d == POWERSHELL || d == POWERSHELL_CORE;
     }
 
+    public static boolean isPosix(ShellControl sc) {
+        if (sc.getShellDialect() == null) {
+            return false;
+        }
+
+        return isPosix(sc.getShellDialect());
+    }
+
+    public static boolean isPosix(ShellDialect d) {
+        return d == SH || d == DASH || d == ASH || d == BASH || d == ZSH;
+    }
+
     public static Optional<ShellDialect> byIdIfPresent(String name) {
         return ALL.stream().filter(shellType -> shellType.getId().equals(name)).findFirst();
     }
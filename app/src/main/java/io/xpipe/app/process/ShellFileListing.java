@@ -0,0 +1,363 @@
+package io.xpipe.app.process;
+
+import io.xpipe.app.ext.*;
+import io.xpipe.core.FailableFunction;
+import io.xpipe.core.FilePath;
+import io.xpipe.core.OsType;
+
+import lombok.SneakyThrows;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class ShellFileListing {
+
+    private static final Set<ShellDialect> FIND_DIALECTS = new HashSet<>();
+    private static final Map<ShellControl, Boolean> FIND_PRINTF_SUPPORT =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private static final int MAX_ARGUMENTS_LENGTH = 16 * 1024;
+    private static final long WINDOWS_EPOCH_TICKS = 621355968000000000L;
+    private static final String FIND_FORMAT = "\"%y\\t%Y\\t%s\\t%T@\\t%M\\t%U\\t%u\\t%G\\t%g\\0%l\\0%p\\0\"";
+    private static final String POWERSHELL_FORMAT =
+            "ForEach-Object { \"$(if ($_.LinkType) {'l'} elseif ($_.PSIsContainer) {'d'} else {'f'})`t"
+                    + "$($_.Length)`t$($_.LastWriteTimeUtc.Ticks)`t$($_.Mode)`t$($_.Target)`t$($_.FullName)\" }";
+
+    private static boolean isFindDialect(ShellDialect dialect) {
+        synchronized (FIND_DIALECTS) {
+            if (FIND_DIALECTS.isEmpty()) {
+                FIND_DIALECTS.addAll(Arrays.asList(
+                        ShellDialects.SH,
+                        ShellDialects.DASH,
+                        ShellDialects.ASH,
+                        ShellDialects.BASH,
+                        ShellDialects.ZSH,
+                        ShellDialects.FISH));
+            }
+            return FIND_DIALECTS.contains(dialect);
+        }
+    }
+
+    public static Optional<Stream<FileEntry>> listRecursively(
+            FileSystem fs, ShellControl sc, String path, int maxDepth, String nameGlob) throws Exception {
+        if (sc.getOsType() == OsType.WINDOWS) {
+            // The depth parameter is not available in older powershell versions
+            // The filter parameter only supports simple wildcards
+            if (ShellDialects.isPowershell(sc)
+                    && maxDepth == Integer.MAX_VALUE
+                    && (nameGlob == null || nameGlob.matches("[^\\[\\]{}\\\\]*"))) {
+                return Optional.of(listWithGetChildItem(fs, sc, path, nameGlob));
+            }
+
+            return Optional.empty();
+        }
+
+        // Errors are captured with posix shell syntax
+        if (!ShellDialects.isPosix(sc) || !supportsFindPrintf(sc)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(listWithFind(fs, sc, path, maxDepth, nameGlob));
+    }
+
+    public static Optional<Stream<FileEntry>> listInfos(FileSystem fs, ShellControl sc, List<String> paths)
+            throws Exception {
+        if (paths.isEmpty()) {
+            return Optional.of(Stream.empty());
+        }
+
+        if (sc.getOsType() == OsType.WINDOWS) {
+            if (ShellDialects.isPowershell(sc)) {
+                return Optional.of(listChunked(paths, chunk -> {
+                    var literals = chunk.stream()
+                            .map(path -> "'" + path.replace("'", "''") + "'")
+                            .collect(Collectors.joining(","));
+                    var cmd = "Get-Item -LiteralPath " + literals + " -Force -ErrorAction SilentlyContinue | "
+                            + POWERSHELL_FORMAT;
+                    return readPowershellLines(fs, sc, cmd);
+                }));
+            }
+
+            return Optional.empty();
+        }
+
+        if (!isFindDialect(sc.getShellDialect()) || !supportsFindPrintf(sc)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(listChunked(paths, chunk -> {
+            var cmd = CommandBuilder.of().add("find");
+            chunk.forEach(cmd::addFile);
+            cmd.add("-maxdepth", "0", "-printf", FIND_FORMAT, "2>/dev/null", "||", "true");
+            return readFindTokens(fs, sc.command(cmd), false);
+        }));
+    }
+
+    private static Stream<FileEntry> listChunked(
+            List<String> paths, FailableFunction<List<String>, Stream<FileEntry>, Exception> list) {
+        // The command line length is limited, so only pass a bounded amount of paths to one command
+        var chunks = new ArrayList<List<String>>();
+        var current = new ArrayList<String>();
+        var length = 0;
+        for (var path : paths) {
+            if (!current.isEmpty() && length + path.length() > MAX_ARGUMENTS_LENGTH) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                length = 0;
+            }
+            current.add(path);
+            length += path.length() + 3;
+        }
+        chunks.add(current);
+        // The commands are started one after another when the stream is consumed
+        return chunks.stream().flatMap(chunk -> listChunk(list, chunk));
+    }
+
+    @SneakyThrows
+    private static Stream<FileEntry> listChunk(
+            FailableFunction<List<String>, Stream<FileEntry>, Exception> list, List<String> chunk) {
+        return list.apply(chunk);
+    }
+
+    private static boolean supportsFindPrintf(ShellControl sc) throws Exception {
+        var cached = FIND_PRINTF_SUPPORT.get(sc);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Only GNU find supports -printf
+        var supported = sc.command(CommandBuilder.of().add("find", "/", "-maxdepth", "0", "-printf", "\"\""))
+                .executeAndCheck();
+        FIND_PRINTF_SUPPORT.put(sc, supported);
+        return supported;
+    }
+
+    private static Stream<FileEntry> listWithFind(
+            FileSystem fs, ShellControl sc, String path, int maxDepth, String nameGlob) throws Exception {
+        // Paths can contain any character except NUL, so terminate them with one
+        // The root is followed if it is a symlink, like a normal directory listing would do
+        var find = CommandBuilder.of().add("find", "-H").addFile(path).add("-mindepth", "1");
+        if (maxDepth != Integer.MAX_VALUE) {
+            find.add("-maxdepth", String.valueOf(maxDepth));
+        }
+        if (nameGlob != null) {
+            find.add("-name").addQuoted(nameGlob);
+        }
+        find.add("-printf", FIND_FORMAT);
+
+        // Stdout is streamed while stderr is captured separately and printed after an empty token together with
+        // the exit code, so that errors are not lost
+        var cmd = CommandBuilder.of()
+                .add("{", "__xpipe_err=$(", "{")
+                .add(find)
+                .add("2>&1", "1>&3", "3>&-;", "}", ");", "__xpipe_exit=$?;", "}", "3>&1;")
+                .add("printf", "'\\0%s\\0%s\\0'", "\"$__xpipe_exit\"", "\"$__xpipe_err\";")
+                .add("unset", "__xpipe_err", "__xpipe_exit");
+        return readFindTokens(fs, sc.command(cmd), true);
+    }
+
+    private static Stream<FileEntry> readFindTokens(FileSystem fs, CommandControl command, boolean framed)
+            throws Exception {
+        var in = new BufferedInputStream(command.startExternalStdout());
+        var finished = new AtomicBoolean();
+        var iterator = new Iterator<FileEntry>() {
+
+            private FileEntry next;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) {
+                    return true;
+                }
+
+                if (finished.get()) {
+                    return false;
+                }
+
+                try {
+                    var meta = readToken(in);
+                    if (meta == null) {
+                        finished.set(true);
+                        return false;
+                    }
+
+                    if (framed && meta.isEmpty()) {
+                        finished.set(true);
+                        checkExit(command, readToken(in), readToken(in));
+                        return false;
+                    }
+
+                    var link = readToken(in);
+                    var file = readToken(in);
+                    if (link == null || file == null) {
+                        finished.set(true);
+                        return false;
+                    }
+
+                    next = parseFindEntry(fs, meta, link, file);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public FileEntry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                var r = next;
+                next = null;
+                return r;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    // Don't wait for the remaining traversal when the stream is closed early
+                    if (!finished.get()) {
+                        command.killExternal();
+                    }
+                    closeDrained(in);
+                });
+    }
+
+    @SneakyThrows
+    private static void checkExit(CommandControl command, String exit, String error) {
+        long exitCode;
+        try {
+            exitCode = exit != null ? Long.parseLong(exit.strip()) : CommandControl.UNASSIGNED_EXIT_CODE;
+        } catch (NumberFormatException e) {
+            exitCode = CommandControl.UNASSIGNED_EXIT_CODE;
+        }
+
+        if (exitCode != 0) {
+            throw ProcessOutputException.of(
+                    command.getDisplayCommand(), exitCode, error != null ? error.strip() : "");
+        }
+    }
+
+    private static String readToken(InputStream in) throws IOException {
+        var out = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == 0) {
+                return out.toString(StandardCharsets.UTF_8);
+            }
+            out.write(b);
+        }
+        return null;
+    }
+
+    private static FileEntry parseFindEntry(FileSystem fs, String meta, String link, String file) {
+        var split = meta.split("\t", -1);
+        var kind = parseFindKind(split[0]);
+        var size = split[2];
+        var date = parseEpochSeconds(split[3]);
+        var permissions = split[4].length() > 1 ? split[4].substring(1) : null;
+        var info = new FileInfo.Unix(
+                permissions, parseInteger(split[5]), split[6], parseInteger(split[7]), split[8]);
+        var filePath = FilePath.of(file);
+
+        if (kind == FileKind.LINK) {
+            var targetPath = FilePath.of(link);
+            if (!link.startsWith("/") && filePath.getParent() != null) {
+                targetPath = filePath.getParent().join(link);
+            }
+            var target = new FileEntry(fs, targetPath, date, size, info, parseFindKind(split[1]));
+            return new LinkFileEntry(fs, filePath, date, size, info, target);
+        }
+
+        return new FileEntry(fs, filePath, date, kind == FileKind.DIRECTORY ? null : size, info, kind);
+    }
+
+    private static FileKind parseFindKind(String type) {
+        return switch (type) {
+            case "f" -> FileKind.FILE;
+            case "d" -> FileKind.DIRECTORY;
+            case "l" -> FileKind.LINK;
+            default -> FileKind.OTHER;
+        };
+    }
+
+    private static Instant parseEpochSeconds(String s) {
+        try {
+            return Instant.ofEpochMilli((long) (Double.parseDouble(s) * 1000));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseInteger(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Stream<FileEntry> listWithGetChildItem(
+            FileSystem fs, ShellControl sc, String path, String nameGlob) throws Exception {
+        var literal = "'" + path.replace("'", "''") + "'";
+        var filter = nameGlob != null ? " -Filter '" + nameGlob.replace("'", "''") + "'" : "";
+        var cmd = "Get-ChildItem -LiteralPath " + literal + filter + " -Recurse -Force -ErrorAction SilentlyContinue | "
+                + POWERSHELL_FORMAT;
+        return readPowershellLines(fs, sc, cmd);
+    }
+
+    private static Stream<FileEntry> readPowershellLines(FileSystem fs, ShellControl sc, String cmd)
+            throws Exception {
+        var in = sc.command(cmd).startExternalStdout();
+        var reader = new BufferedReader(sc.getShellDialect().getTextCharset().reader(in));
+        // Windows file names can't contain line breaks or tabs, so lines can be split safely
+        return reader.lines()
+                .filter(line -> !line.isBlank())
+                .map(line -> parseGetChildItemEntry(fs, line))
+                .filter(Objects::nonNull)
+                .onClose(() -> closeDrained(in));
+    }
+
+    private static FileEntry parseGetChildItemEntry(FileSystem fs, String line) {
+        var split = line.split("\t", -1);
+        if (split.length < 6) {
+            return null;
+        }
+
+        var size = split[1].isEmpty() ? null : split[1];
+        Instant date = null;
+        try {
+            date = Instant.ofEpochMilli((Long.parseLong(split[2]) - WINDOWS_EPOCH_TICKS) / 10000);
+        } catch (NumberFormatException ignored) {
+        }
+        var info = new FileInfo.Windows(split[3]);
+        var filePath = FilePath.of(split[5]);
+
+        if (split[0].equals("l")) {
+            var target = new FileEntry(
+                    fs,
+                    FilePath.of(split[4].isEmpty() ? split[5] : split[4]),
+                    date,
+                    size,
+                    info,
+                    split[3].startsWith("d") ? FileKind.DIRECTORY : FileKind.FILE);
+            return new LinkFileEntry(fs, filePath, date, size, info, target);
+        }
+
+        var kind = split[0].equals("d") ? FileKind.DIRECTORY : FileKind.FILE;
+        return new FileEntry(fs, filePath, date, size, info, kind);
+    }
+
+    private static void closeDrained(InputStream in) {
+        // The command has to finish before the shell can be used again
+        try (in) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,32 +2,55 @@ package io.xpipe.app.process;
 
 import io.xpipe.app.core.AppNames;
 import io.xpipe.app.core.AppProperties;
+import io.xpipe.app.ext.HostAddress;
+import io.xpipe.app.ext.NetworkTunnelStore;
 import io.xpipe.app.issue.ErrorEventFactory;
 import io.xpipe.core.FilePath;
 import io.xpipe.core.OsType;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ShellTemp {
 
+    private static final Map<String, Object> SYSTEM_LOCKS = new ConcurrentHashMap<>();
+    private static final Set<String> INITIALIZED_SYSTEMS = ConcurrentHashMap.newKeySet();
+    private static final Object SHARED_LOCK = new Object();
+
     public static FilePath createUserSpecificTempDataDirectory(ShellControl proc, String sub) throws Exception {
         FilePath base;
         // On Windows and macOS, we already have user specific temp directories
         // Even on macOS as root it is technically unique as only root will use /tmp
         if (proc.getOsType() != OsType.WINDOWS && proc.getOsType() != OsType.MACOS) {
             var temp = proc.getSystemTemporaryDirectory();
+            var d = proc.getShellDialect();
             base = temp.join(AppNames.ofCurrent().getKebapName());
-            proc.view().mkdir(base);
+            // If the user is already known, everything can be done in one round trip
+            var cachedUser = proc.view().getCachedUser();
+            var batch = proc.batch();
+            var mkdir = batch.add(proc.command(d.getMkdirsCommand(base.toString())));
             // We have to make sure that also other users can create files here
             // This command should work in all shells
-            proc.command("chmod 777 " + proc.getShellDialect().fileArgument(base))
-                    .executeAndCheck();
+            batch.add(proc.command("chmod 777 " + d.fileArgument(base)));
+            if (cachedUser.isPresent()) {
+                batch.add(proc.command("chmod 700 " + d.fileArgument(base.join(cachedUser.get()))));
+            } else if (ShellBatch.supportsFraming(proc)) {
+                proc.view().prefetch(batch);
+            }
+            batch.execute();
+            mkdir.checkOrThrow();
+
             var user = proc.view().user();
             base = base.join(user);
-            // We have to make sure that also other users can create files here
-            // This command should work in all shells
-            proc.command("chmod 700 " + proc.getShellDialect().fileArgument(base))
-                    .executeAndCheck();
+            if (cachedUser.isEmpty()) {
+                // We have to make sure that also other users can create files here
+                // This command should work in all shells
+                proc.command("chmod 700 " + d.fileArgument(base)).executeAndCheck();
+            }
         } else {
             var temp = proc.getSystemTemporaryDirectory();
             base = temp.join(AppNames.ofCurrent().getKebapName());
@@ -35,11 +58,49 @@ public class ShellTemp {
         return sub != null ? base.join(sub) : base;
     }
 
+    private static String getSystemKey(ShellControl sc) {
+        // Only shell controls that are known to target the same system may skip the check
+        var system = sc.isLocal() ? "local" : sc.getSourceStoreId().map(UUID::toString).orElse(null);
+        return system != null ? system + ":" + sc.getSystemTemporaryDirectory() : null;
+    }
+
+    private static Object getSystemLock(ShellControl sc, String key) {
+        // Different stores can point to the same host, so prefer the host address to identify the system
+        var host = sc.getSourceStore()
+                .filter(store -> store instanceof NetworkTunnelStore)
+                .map(store -> ((NetworkTunnelStore) store).getTunnelHostName())
+                .filter(address -> !address.equals(HostAddress.empty()))
+                .map(address -> "host:" + address.get() + ":" + sc.getSystemTemporaryDirectory())
+                .orElse(null);
+        var lockKey = sc.isLocal() ? key : host != null ? host : key;
+        // Shell controls that can't be identified at all are all serialized with each other
+        return lockKey != null ? SYSTEM_LOCKS.computeIfAbsent(lockKey, k -> new Object()) : SHARED_LOCK;
+    }
+
     public static void checkTempDirectory(ShellControl sc) throws Exception {
+        // Once a system has been initialized in this session, there is nothing left to check
+        var key = getSystemKey(sc);
+        if (key != null && INITIALIZED_SYSTEMS.contains(key)) {
+            return;
+        }
+
         var d = sc.getShellDialect();
         var systemTemp = sc.getSystemTemporaryDirectory();
-        var hasValidTemp = d.directoryExists(sc, systemTemp.toString()).executeAndCheck()
-                && checkDirectoryPermissions(sc, systemTemp.toString());
+        var sessionFile =
+                systemTemp.join("xpipe-session-" + AppProperties.get().getSessionId().toString().substring(0, 8));
+
+        // Query everything in one round trip, including common information that is needed later on anyway
+        var batch = sc.batch();
+        var tempExists = batch.add(d.directoryExists(sc, systemTemp.toString()));
+        var tempPermissions = createDirectoryPermissionsCommand(sc, systemTemp.toString());
+        var tempAccessible = tempPermissions.isPresent() ? batch.add(tempPermissions.get()) : null;
+        var sessionExists = batch.add(d.createFileExistsCommand(sc, sessionFile.toString()));
+        // Prefetching only saves round trips if the batch can run in one go
+        if (ShellBatch.supportsFraming(sc)) {
+            sc.view().prefetch(batch);
+        }
+        batch.execute();
+        var hasValidTemp = tempExists.isSuccess() && (tempAccessible == null || tempAccessible.isSuccess());
 
         // We only really need temp for cmd
         // On various containers temp might be not available, but we can make it work
@@ -50,75 +111,87 @@ public class ShellTemp {
 
         if (hasValidTemp) {
             // When starting up multiple sessions to the same system, there might be race conditions here
-            // This is quite inefficient but there is no way to synchronize access on a
-            // specific system when multiple shell controls access it
-            synchronized (ShellTemp.class) {
-                var sessionFile = systemTemp.join("xpipe-session-"
-                        + AppProperties.get().getSessionId().toString().substring(0, 8));
-                var newSession = !sc.view().fileExists(sessionFile);
+            // Sessions to different systems don't interfere with each other and can run concurrently
+            synchronized (getSystemLock(sc, key)) {
+                if (key != null && INITIALIZED_SYSTEMS.contains(key)) {
+                    return;
+                }
+
+                // Another session might have created the session file while we were waiting for the lock
+                var newSession = !sessionExists.isSuccess()
+                        && !d.createFileExistsCommand(sc, sessionFile.toString()).executeAndCheck();
                 if (newSession) {
-                    clearTemp(sc);
-                    try {
-                        sc.view().touch(sessionFile);
-                    } catch (ProcessOutputException pex) {
-                        if (!pex.getOutput().toLowerCase().contains("no space left on device")) {
-                            throw pex;
-                        }
+                    var clearBatch = sc.batch();
+                    createClearTempCommand(sc).ifPresent(clearBatch::add);
+                    var touch = clearBatch.add(d.getFileTouchCommand(sc, sessionFile.toString()));
+                    clearBatch.execute();
+                    var touchOutput = (touch.getError() + "\n" + touch.getOutput()).toLowerCase();
+                    if (!touch.isSuccess() && !touchOutput.contains("no space left on device")) {
+                        touch.checkOrThrow();
                     }
                 }
+                if (key != null) {
+                    INITIALIZED_SYSTEMS.add(key);
+                }
             }
         }
     }
 
     public static void clearTemp(ShellControl sc) throws Exception {
+        var command = createClearTempCommand(sc);
+        if (command.isPresent()) {
+            command.get().executeAndCheck();
+        }
+    }
+
+    private static Optional<CommandControl> createClearTempCommand(ShellControl sc) {
         var systemTemp = sc.getSystemTemporaryDirectory();
 
         // The temp dir is a lot to clean on Windows potentially
         // Also, the wildcard remove is very slow in PowerShell
         var skipClear = OsType.ofLocal() == OsType.WINDOWS && sc.isLocal();
-        if (!skipClear) {
-            clearFiles(sc, systemTemp.join("xpipe-"));
+        if (skipClear) {
+            return Optional.empty();
         }
+
+        return Optional.of(createClearFilesCommand(sc, systemTemp.join("xpipe-")));
     }
 
-    private static void clearFiles(ShellControl sc, FilePath prefix) throws Exception {
+    private static CommandControl createClearFilesCommand(ShellControl sc, FilePath prefix) {
         var d = sc.getShellDialect();
         if (d == ShellDialects.CMD) {
-            sc.command(CommandBuilder.of().add("DEL", "/Q", "/F").addQuoted(prefix.toString() + "*"))
-                    .executeAndCheck();
+            return sc.command(CommandBuilder.of().add("DEL", "/Q", "/F").addQuoted(prefix.toString() + "*"));
         } else if (ShellDialects.isPowershell(d)) {
-            sc.command(CommandBuilder.of()
-                            .add("Get-ChildItem")
-                            .addFile(prefix.getParent())
-                            .add(
-                                    "|",
-                                    "Where-Object",
-                                    "{-not $_.PSIsContainer}",
-                                    "|",
-                                    "Where-Object",
-                                    "{$_.Name.StartsWith(\"" + prefix.getFileName() + "\")}",
-                                    "|",
-                                    "Remove-Item",
-                                    "-Recurse",
-                                    "-Force"))
-                    .executeAndCheck();
+            return sc.command(CommandBuilder.of()
+                    .add("Get-ChildItem")
+                    .addFile(prefix.getParent())
+                    .add(
+                            "|",
+                            "Where-Object",
+                            "{-not $_.PSIsContainer}",
+                            "|",
+                            "Where-Object",
+                            "{$_.Name.StartsWith(\"" + prefix.getFileName() + "\")}",
+                            "|",
+                            "Remove-Item",
+                            "-Recurse",
+                            "-Force"));
         } else {
-            sc.command(CommandBuilder.of()
-                            .add("rm", "-f")
-                            .add("\"" + prefix.toString() + "\"*")
-                            .add("2>/dev/null"))
-                    .executeAndCheck();
+            return sc.command(CommandBuilder.of()
+                    .add("rm", "-f")
+                    .add("\"" + prefix.toString() + "\"*")
+                    .add("2>/dev/null"));
         }
     }
 
-    private static boolean checkDirectoryPermissions(ShellControl proc, String dir) throws Exception {
+    private static Optional<CommandControl> createDirectoryPermissionsCommand(ShellControl proc, String dir) {
         if (proc.getOsType() == OsType.WINDOWS) {
-            return true;
+            return Optional.empty();
         }
 
         var d = proc.getShellDialect();
-        return proc.executeSimpleBooleanCommand("test -r %s && test -w %s && test -x %s"
-                .formatted(d.fileArgument(dir), d.fileArgument(dir), d.fileArgument(dir)));
+        return Optional.of(proc.command("test -r %s && test -w %s && test -x %s"
+                .formatted(d.fileArgument(dir), d.fileArgument(dir), d.fileArgument(dir))));
     }
 
     public static FilePath getSubDirectory(ShellControl proc, String... sub) throws Exception {
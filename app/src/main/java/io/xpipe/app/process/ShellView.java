@@ -143,6 +143,10 @@ public class ShellView {
     }
 
     public String getRecognizedArch() throws Exception {
+        if (recognized != null) {
+            return recognized;
+        }
+
         if (shellControl.getOsType() == OsType.WINDOWS) {
             var env = getEnvironmentVariable("PROCESSOR_ARCHITECTURE").orElse(null);
             var effective = "ARM64".equals(env) ? "arm64" : "x86_64";
@@ -174,6 +178,45 @@ public class ShellView {
         return getDialect().directoryExists(shellControl, path.toString()).executeAndCheck();
     }
 
+    public synchronized void prefetch(ShellBatch batch) throws Exception {
+        if (user == null) {
+            batch.add(getDialect().printUsernameCommand(shellControl), entry -> {
+                if (entry.isSuccess() && !entry.getOutput().isBlank()) {
+                    synchronized (this) {
+                        user = entry.getOutput();
+                    }
+                }
+            });
+        }
+
+        if (userHome == null) {
+            var variable = shellControl.getOsType() == OsType.WINDOWS ? "USERPROFILE" : "HOME";
+            var command = shellControl.command(getDialect().getPrintEnvironmentVariableCommand(variable));
+            batch.add(command, entry -> {
+                var r = entry.getOutput();
+                if (entry.isSuccess() && !r.isBlank() && !r.equals(getDialect().environmentVariable(variable))) {
+                    synchronized (this) {
+                        userHome = FilePath.of(r);
+                    }
+                }
+            });
+        }
+
+        if (recognized == null && shellControl.getOsType() != OsType.WINDOWS) {
+            batch.add(shellControl.command(CommandBuilder.of().add("uname", "-m")), entry -> {
+                if (entry.isSuccess()) {
+                    synchronized (this) {
+                        recognized = "arm64".equals(entry.getOutput()) ? "arm64" : "x86_64";
+                    }
+                }
+            });
+        }
+    }
+
+    public synchronized Optional<String> getCachedUser() {
+        return Optional.ofNullable(user);
+    }
+
     public String user() throws Exception {
         if (user == null) {
             user = getDialect().printUsernameCommand(shellControl).readStdoutOrThrow();
@@ -20,6 +20,7 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -36,6 +37,7 @@ public abstract class DataStorage {
     public static final UUID ALL_MACROS_CATEGORY_UUID = UUID.fromString("f65b769a-cec9-4f30-ad58-95fe68d79c2c");
     public static final UUID LOCAL_IDENTITIES_CATEGORY_UUID = UUID.fromString("e784de4e-abea-4cb8-a839-fc557cd23097");
     public static final UUID SYNCED_IDENTITIES_CATEGORY_UUID = UUID.fromString("69aa5040-28dc-451e-b4ff-1192ce5e1e3c");
+    private static final int MAX_REFRESH_PASSES = 10;
     private static DataStorage INSTANCE;
     protected final Path dir;
 
@@ -51,10 +53,11 @@ public abstract class DataStorage {
     private final List<StorageListener> listeners = new CopyOnWriteArrayList<>();
 
     private final Map<DataStoreEntry, DataStoreEntry> storeEntriesInProgress = new ConcurrentHashMap<>();
-    private final Map<DataStore, DataStoreEntry> identityStoreEntryMapCache = new IdentityHashMap<>();
-    private final Map<DataStore, DataStoreEntry> storeEntryMapCache = new HashMap<>();
-    private final Map<DataStore, DataStore> storeMoveCache = new IdentityHashMap<>();
-    private final Map<DataStoreEntry, Collection<DataStoreEntryRef<?>>> storeDependencyCache = new HashMap<>();
+    private final DataStorageEntryIndex entryIndex = new DataStorageEntryIndex();
+    private final DataStorageChildrenIndex childrenIndex;
+    private final DataStorageDependencyGraph dependencyGraph = new DataStorageDependencyGraph();
+    private final Map<DataStoreEntry, CachedStorePath> storePaths = new ConcurrentHashMap<>();
+    private final AtomicLong storePathGeneration = new AtomicLong();
 
     @Getter
     protected boolean entriesAvailable;
@@ -68,6 +71,7 @@ public abstract class DataStorage {
         this.storeEntries = new ConcurrentHashMap<>();
         this.storeEntriesSet = storeEntries.keySet();
         this.storeCategories = new CopyOnWriteArrayList<>();
+        this.childrenIndex = new DataStorageChildrenIndex(e -> storeEntries.get(e) != null);
     }
 
     public static Path getStorageDirectory() {
@@ -285,6 +289,12 @@ public abstract class DataStorage {
 
     public abstract boolean supportsSync();
 
+    protected void markDirty(StorageElement element) {}
+
+    protected void markRemoved() {}
+
+    protected void requestFullSave() {}
+
     public boolean shouldSync(DataStoreCategory category) {
         // Don't sync lone identities category
         if (category.getUuid().equals(SYNCED_IDENTITIES_CATEGORY_UUID)
@@ -335,7 +345,54 @@ public abstract class DataStorage {
     public void refreshEntries() {
         storeEntries.keySet().forEach(dataStoreEntry -> {
             dataStoreEntry.refreshStore();
+            entryIndex.update(dataStoreEntry);
         });
+        childrenIndex.refresh(storeEntries.keySet());
+        dependencyGraph.refresh(storeEntries.keySet());
+        invalidateStorePaths();
+    }
+
+    public void refreshEntriesUntilStable() {
+        // Chained stores might need multiple passes until all refs are resolved and validities are complete
+        for (int i = 0; i < MAX_REFRESH_PASSES; i++) {
+            var changed = refreshEntriesPass(List.copyOf(storeEntries.keySet()));
+            childrenIndex.refresh(storeEntries.keySet());
+            dependencyGraph.refresh(storeEntries.keySet());
+            invalidateStorePaths();
+            if (!changed) {
+                return;
+            }
+        }
+    }
+
+    public void refreshEntryWithDependents(DataStoreEntry entry) {
+        for (int i = 0; i < MAX_REFRESH_PASSES; i++) {
+            var affected = new LinkedHashSet<DataStoreEntry>();
+            if (storeEntries.containsKey(entry)) {
+                affected.add(entry);
+            }
+            getSyntheticParent(entry)
+                    .map(p -> storeEntries.get(p))
+                    .ifPresent(affected::add);
+            affected.addAll(getDependents(entry));
+            if (!refreshEntriesPass(affected)) {
+                return;
+            }
+        }
+    }
+
+    private boolean refreshEntriesPass(Collection<DataStoreEntry> entries) {
+        var changed = false;
+        for (DataStoreEntry e : entries) {
+            var oldValidity = e.getValidity();
+            var oldStore = e.getStore();
+            e.refreshStore();
+            if (oldValidity != e.getValidity() || oldStore != e.getStore()) {
+                changed = true;
+                updateIndexes(e);
+            }
+        }
+        return changed;
     }
 
     public void updateEntry(DataStoreEntry entry, DataStoreEntry newEntry) {
@@ -368,27 +425,19 @@ public abstract class DataStorage {
             listeners.forEach(storageListener -> storageListener.onStoreRemove(toRemove));
         }
 
-        if (entry.getStore() != null) {
-            synchronized (identityStoreEntryMapCache) {
-                identityStoreEntryMapCache.remove(entry.getStore());
-            }
-            synchronized (storeEntryMapCache) {
-                storeEntryMapCache.remove(entry.getStore());
-            }
-            synchronized (storeDependencyCache) {
-                storeDependencyCache.remove(entry);
-            }
-        }
-
         var categoryChanged = !entry.getCategoryUuid().equals(newEntry.getCategoryUuid());
         var userScopeChanged = entry.isPerUserStore() != newEntry.isPerUserStore();
 
         if (entry.getStore() != null && newEntry.getStore() != null) {
-            synchronized (storeMoveCache) {
-                storeMoveCache.put(entry.getStore(), newEntry.getStore());
-            }
+            entryIndex.move(entry.getStore(), newEntry.getStore());
         }
+        var renamed = !Objects.equals(entry.getName(), newEntry.getName());
         entry.applyChanges(newEntry);
+        updateIndexes(entry);
+        if (renamed) {
+            // Applying the changes doesn't go through the rename handling
+            onEntryRename(entry);
+        }
 
         if (!sameParent) {
             if (oldParent.isPresent()) {
@@ -413,44 +462,37 @@ public abstract class DataStorage {
 
         SecretManager.moveReferences(newEntry.getUuid(), entry.getUuid());
 
-        refreshEntries();
+        refreshEntryWithDependents(entry);
         saveAsync();
     }
 
     private void updateUserScope(DataStoreEntry entry) {
-        var otherToUpdate = new ArrayList<DataStoreEntry>();
-        synchronized (storeDependencyCache) {
-            for (DataStoreEntry other : getStoreEntries()) {
-                var cached = storeDependencyCache.computeIfAbsent(other, this::getDependencies);
-                if (cached.contains(entry.ref())) {
-                    otherToUpdate.add(other);
-                }
-            }
-        }
-
-        for (DataStoreEntry other : otherToUpdate) {
+        for (DataStoreEntry other : getDependents(entry)) {
             other.reassignStoreNode();
         }
     }
 
     public void finalizeWithDependencies(DataStoreEntry entry) {
-        var otherToFinalize = new ArrayList<DataStoreEntry>();
-        synchronized (storeDependencyCache) {
-            for (DataStoreEntry other : getStoreEntries()) {
-                var cached = storeDependencyCache.computeIfAbsent(other, this::getDependencies);
-                if (cached.contains(entry.ref())) {
-                    otherToFinalize.add(other);
-                }
-            }
-        }
-
-        for (DataStoreEntry other : otherToFinalize) {
+        for (DataStoreEntry other : getDependents(entry)) {
             other.finalizeEntry();
         }
 
         entry.finalizeEntry();
     }
 
+    // The entries that would break if the given entry was removed
+    public SequencedSet<DataStoreEntry> getDependents(DataStoreEntry entry) {
+        var dependents = dependencyGraph.getDependents(entry);
+        dependents.removeIf(other -> !storeEntries.containsKey(other));
+        return dependents;
+    }
+
+    public Set<DataStoreEntry> getDirectDependents(DataStoreEntry entry) {
+        return dependencyGraph.getDirectDependents(entry).stream()
+                .filter(other -> storeEntries.containsKey(other))
+                .collect(Collectors.toSet());
+    }
+
     public Set<DataStoreEntryRef<?>> getDependencies(DataStoreEntry entry) {
         return getDependencies(entry, new HashSet<>());
     }
@@ -485,14 +527,12 @@ public abstract class DataStorage {
 
         finalizeWithDependencies(entry);
         if (entry.getStore() != null && store != null && !entry.getStore().equals(store)) {
-            synchronized (storeMoveCache) {
-                storeMoveCache.put(entry.getStore(), store);
-            }
-            synchronized (storeDependencyCache) {
-                storeDependencyCache.put(entry, getDependencies(entry));
-            }
+            entryIndex.move(entry.getStore(), store);
         }
         entry.setStoreInternal(store, false);
+        if (storeEntries.containsKey(entry)) {
+            updateIndexes(entry);
+        }
 
         var syntheticParent = getSyntheticParent(entry);
         if (syntheticParent.isPresent()) {
@@ -513,6 +553,8 @@ public abstract class DataStorage {
 
     public void updateCategoryConfig(DataStoreCategory category, DataStoreCategoryConfig config) {
         if (category.setConfig(config)) {
+            // Sync settings might have changed for all contained entries
+            requestFullSave();
             // Update git remote if needed
             saveAsync();
         }
@@ -913,28 +955,56 @@ public abstract class DataStorage {
 
         for (var td : toDelete) {
             td.finalizeEntry();
-            this.storeEntriesSet.remove(td);
-            synchronized (identityStoreEntryMapCache) {
-                identityStoreEntryMapCache.remove(td.getStore());
-            }
-            synchronized (storeEntryMapCache) {
-                storeEntryMapCache.remove(td.getStore());
-            }
-            synchronized (storeDependencyCache) {
-                storeDependencyCache.remove(td);
-            }
+            removeStoreEntryInternal(td);
             var parent = getDefaultDisplayParent(td);
             parent.ifPresent(p -> p.setChildrenCache(null));
         }
+        markRemoved();
 
         this.listeners.forEach(l -> l.onStoreRemove(toDelete.toArray(DataStoreEntry[]::new)));
-        refreshEntries();
+        toDelete.forEach(this::refreshEntryWithDependents);
         saveAsync();
     }
 
+    protected void putStoreEntryInternal(DataStoreEntry e) {
+        storeEntries.put(e, e);
+        entryIndex.add(e);
+        childrenIndex.add(e);
+        invalidateStorePaths();
+    }
+
+    protected void removeStoreEntryInternal(DataStoreEntry e) {
+        storeEntries.remove(e);
+        entryIndex.remove(e);
+        childrenIndex.remove(e);
+        dependencyGraph.remove(e);
+        storePaths.remove(e);
+        invalidateStorePaths();
+    }
+
+    private void updateIndexes(DataStoreEntry e) {
+        entryIndex.update(e);
+        if (childrenIndex.update(e)) {
+            invalidateStorePaths();
+        }
+        dependencyGraph.update(e);
+    }
+
+    void onEntryRename(DataStoreEntry e) {
+        entryIndex.update(e);
+        invalidateStorePaths();
+    }
+
+    private void invalidateStorePaths() {
+        // Paths contain the names of all parents, so any structural change can affect other entries as well
+        storePathGeneration.incrementAndGet();
+        storePaths.clear();
+    }
+
     public void addStoreCategory(@NonNull DataStoreCategory cat) {
         cat.setDirectory(getCategoriesDir().resolve(cat.getUuid().toString()));
         this.storeCategories.add(cat);
+        markDirty(cat);
         saveAsync();
 
         this.listeners.forEach(l -> l.onCategoryAdd(cat));
@@ -979,7 +1049,8 @@ public abstract class DataStorage {
         }
 
         e.setDirectory(getStoresDir().resolve(e.getUuid().toString()));
-        this.storeEntries.put(e, e);
+        putStoreEntryInternal(e);
+        markDirty(e);
         displayParent.ifPresent(p -> {
             p.setChildrenCache(null);
         });
@@ -987,6 +1058,7 @@ public abstract class DataStorage {
 
         this.listeners.forEach(l -> l.onStoreAdd(e));
         e.refreshStore();
+        updateIndexes(e);
         return e;
     }
 
@@ -1020,13 +1092,15 @@ public abstract class DataStorage {
             }
 
             e.setDirectory(getStoresDir().resolve(e.getUuid().toString()));
-            this.storeEntries.put(e, e);
+            putStoreEntryInternal(e);
+            markDirty(e);
             displayParent.ifPresent(p -> {
                 p.setChildrenCache(null);
             });
         }
         for (DataStoreEntry e : toAdd) {
             e.refreshStore();
+            updateIndexes(e);
         }
 
         // Retain ordering
@@ -1066,16 +1140,11 @@ public abstract class DataStorage {
         }
 
         finalizeWithDependencies(entry);
-        this.storeEntries.remove(entry);
-        synchronized (identityStoreEntryMapCache) {
-            identityStoreEntryMapCache.remove(entry.getStore());
-        }
-        synchronized (storeEntryMapCache) {
-            storeEntryMapCache.remove(entry.getStore());
-        }
+        removeStoreEntryInternal(entry);
         getDefaultDisplayParent(entry).ifPresent(p -> p.setChildrenCache(null));
+        markRemoved();
         this.listeners.forEach(l -> l.onStoreRemove(entry));
-        refreshEntries();
+        refreshEntryWithDependents(entry);
         saveAsync();
     }
 
@@ -1146,6 +1215,7 @@ public abstract class DataStorage {
             storeCategories.remove(delCat);
             this.listeners.forEach(l -> l.onCategoryRemove(delCat));
         }
+        markRemoved();
 
         saveAsync();
     }
@@ -1318,7 +1388,27 @@ public abstract class DataStorage {
             return Set.of();
         }
 
-        var children = entries.stream()
+        Set<DataStoreEntry> children = isParentLoop(entry)
+                ? Set.of()
+                : childrenIndex.getChildren(entry, entries).stream()
+                        .filter(other -> other.getValidity() != DataStoreEntry.Validity.LOAD_FAILED
+                                && storeEntries.containsKey(other))
+                        .collect(Collectors.toSet());
+
+        if (AppProperties.get().isDebugStorageIndex()) {
+            checkChildrenIndex(entry, children);
+        }
+
+        // Don't build caches too early to prevent wrong caches
+        if (entriesAvailable) {
+            entry.setChildrenCache(children);
+        }
+
+        return children;
+    }
+
+    private void checkChildrenIndex(DataStoreEntry entry, Set<DataStoreEntry> indexed) {
+        var expected = getStoreEntries().stream()
                 .filter(other -> {
                     if (other.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
                         return false;
@@ -1328,13 +1418,26 @@ public abstract class DataStorage {
                     return parent.isPresent() && parent.get().equals(entry) && !isParentLoop(entry);
                 })
                 .collect(Collectors.toSet());
-
-        // Don't build caches too early to prevent wrong caches
-        if (entriesAvailable) {
-            entry.setChildrenCache(children);
+        if (!expected.equals(indexed)) {
+            TrackEvent.withWarn("Children index is inconsistent")
+                    .tag("entry", entry.getName())
+                    .tag(
+                            "missing",
+                            expected.stream()
+                                    .filter(e -> !indexed.contains(e))
+                                    .map(DataStoreEntry::getName)
+                                    .toList())
+                    .tag(
+                            "unexpected",
+                            indexed.stream()
+                                    .filter(e -> !expected.contains(e))
+                                    .map(DataStoreEntry::getName)
+                                    .toList())
+                    .handle();
+            ErrorEventFactory.fromMessage("Children index of entry " + entry.getName() + " is inconsistent. Expected "
+                            + expected.size() + " children, but index contains " + indexed.size())
+                    .handle();
         }
-
-        return children;
     }
 
     public List<DataStoreCategory> getCategoryParentHierarchy(DataStoreCategory cat) {
@@ -1370,9 +1473,19 @@ public abstract class DataStorage {
     }
 
     public StorePath getStorePath(DataStoreEntry entry) {
-        return StorePath.create(getStoreParentHierarchy(entry).stream()
+        var generation = storePathGeneration.get();
+        var cached = storePaths.get(entry);
+        if (cached != null && cached.generation() == generation) {
+            return cached.path();
+        }
+
+        var path = StorePath.create(getStoreParentHierarchy(entry).stream()
                 .map(e -> e.getName().toLowerCase().replaceAll("/", "_"))
                 .toArray(String[]::new));
+        if (storeEntries.containsKey(entry)) {
+            storePaths.put(entry, new CachedStorePath(generation, path));
+        }
+        return path;
     }
 
     public StorePath getStorePath(DataStoreCategory entry) {
@@ -1389,62 +1502,16 @@ public abstract class DataStorage {
             return found;
         }
 
-        DataStore moved;
-        synchronized (storeMoveCache) {
-            moved = storeMoveCache.get(store);
-        }
-        if (moved != null) {
-            return getStoreEntryInProgressIfPresent(moved);
+        var moved = entryIndex.getMoved(store);
+        if (moved.isPresent() && moved.get() != store) {
+            return getStoreEntryInProgressIfPresent(moved.get());
         }
 
         return Optional.empty();
     }
 
     public Optional<DataStoreEntry> getStoreEntryIfPresent(@NonNull DataStore store, boolean identityOnly) {
-        if (identityOnly) {
-            synchronized (identityStoreEntryMapCache) {
-                var found = identityStoreEntryMapCache.get(store);
-                if (found != null) {
-                    return Optional.of(found);
-                }
-            }
-        } else {
-            synchronized (storeEntryMapCache) {
-                var found = storeEntryMapCache.get(store);
-                if (found != null) {
-                    return Optional.of(found);
-                }
-            }
-        }
-
-        DataStore moved;
-        synchronized (storeMoveCache) {
-            moved = storeMoveCache.get(store);
-        }
-        if (moved != null) {
-            return getStoreEntryIfPresent(moved, identityOnly);
-        }
-
-        var found = storeEntriesSet.stream()
-                .filter(n -> n.getStore() == store
-                        || (!identityOnly
-                                && (n.getStore() != null
-                                        && Objects.equals(
-                                                store.getClass(), n.getStore().getClass())
-                                        && store.equals(n.getStore()))))
-                .findFirst();
-        if (found.isPresent()) {
-            if (identityOnly) {
-                synchronized (identityStoreEntryMapCache) {
-                    identityStoreEntryMapCache.put(store, found.get());
-                }
-            } else {
-                synchronized (storeEntryMapCache) {
-                    storeEntryMapCache.put(store, found.get());
-                }
-            }
-        }
-        return found;
+        return entryIndex.getByStore(store, identityOnly);
     }
 
     public DataStoreCategory getRootCategory(DataStoreCategory category) {
@@ -1476,9 +1543,7 @@ public abstract class DataStorage {
     }
 
     public Optional<DataStoreEntry> getStoreEntryIfPresent(@NonNull String name) {
-        return storeEntriesSet.stream()
-                .filter(n -> n.getName().equalsIgnoreCase(name))
-                .findFirst();
+        return entryIndex.getByName(name);
     }
 
     public String getStoreEntryDisplayName(DataStoreEntry entry) {
@@ -1510,7 +1575,11 @@ public abstract class DataStorage {
     }
 
     public Optional<DataStoreEntry> getStoreEntryIfPresent(UUID id) {
-        return storeEntriesSet.stream().filter(e -> e.getUuid().equals(id)).findAny();
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        return entryIndex.getByUuid(id);
     }
 
     public Set<DataStoreEntry> getStoreEntries() {
@@ -1535,4 +1604,6 @@ public abstract class DataStorage {
                 .orElseThrow(() ->
                         new IllegalStateException("Missing local machine connection, restart is required to fix this"));
     }
+
+    private record CachedStorePath(long generation, StorePath path) {}
 }
@@ -0,0 +1,113 @@
+package io.xpipe.app.storage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+class DataStorageChildrenIndex {
+
+    private final Map<DataStoreEntry, DataStoreEntry> parents = new ConcurrentHashMap<>();
+    private final Map<DataStoreEntry, Set<DataStoreEntry>> children = new ConcurrentHashMap<>();
+
+    private final Predicate<DataStoreEntry> stored;
+
+    // Entries without a parent might resolve to a parent once new entries are added
+    private volatile boolean orphansStale;
+
+    DataStorageChildrenIndex(Predicate<DataStoreEntry> stored) {
+        this.stored = stored;
+    }
+
+    public synchronized boolean update(DataStoreEntry entry) {
+        var newParent = resolveParent(entry);
+        var oldParent = newParent != null ? parents.put(entry, newParent) : parents.remove(entry);
+        if (Objects.equals(oldParent, newParent)) {
+            return false;
+        }
+
+        if (oldParent != null) {
+            var set = children.get(oldParent);
+            if (set != null) {
+                set.remove(entry);
+                if (set.isEmpty()) {
+                    children.remove(oldParent);
+                }
+            }
+            oldParent.setChildrenCache(null);
+        }
+
+        if (newParent != null) {
+            children.computeIfAbsent(newParent, k -> ConcurrentHashMap.newKeySet())
+                    .add(entry);
+            newParent.setChildrenCache(null);
+        }
+        return true;
+    }
+
+    public synchronized void add(DataStoreEntry entry) {
+        update(entry);
+        orphansStale = true;
+    }
+
+    public synchronized void remove(DataStoreEntry entry) {
+        // We keep the children of the removed entry indexed in case it is added again
+        var oldParent = parents.remove(entry);
+        if (oldParent != null) {
+            var set = children.get(oldParent);
+            if (set != null) {
+                set.remove(entry);
+                if (set.isEmpty()) {
+                    children.remove(oldParent);
+                }
+            }
+            oldParent.setChildrenCache(null);
+        }
+    }
+
+    public synchronized void refresh(Collection<DataStoreEntry> entries) {
+        entries.forEach(this::update);
+        for (DataStoreEntry indexed : new ArrayList<>(parents.keySet())) {
+            if (!entries.contains(indexed)) {
+                remove(indexed);
+            }
+        }
+        orphansStale = false;
+    }
+
+    public Set<DataStoreEntry> getChildren(DataStoreEntry entry, Collection<DataStoreEntry> entries) {
+        if (orphansStale) {
+            refreshOrphans(entries);
+        }
+
+        var set = children.get(entry);
+        return set != null ? set : Set.of();
+    }
+
+    private synchronized void refreshOrphans(Collection<DataStoreEntry> entries) {
+        if (!orphansStale) {
+            return;
+        }
+
+        orphansStale = false;
+        for (DataStoreEntry entry : entries) {
+            if (!parents.containsKey(entry)) {
+                update(entry);
+            }
+        }
+    }
+
+    private DataStoreEntry resolveParent(DataStoreEntry entry) {
+        if (entry.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
+            return null;
+        }
+
+        try {
+            var provider = entry.getProvider();
+            var parent = provider != null ? provider.getDisplayParent(entry) : null;
+            // Parents that are not part of the storage are not shown, same as for the default display parent
+            return parent != null && stored.test(parent) ? parent : null;
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+}
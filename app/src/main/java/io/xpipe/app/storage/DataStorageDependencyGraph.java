@@ -0,0 +1,102 @@
+package io.xpipe.app.storage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+class DataStorageDependencyGraph {
+
+    private final Map<DataStoreEntry, Set<DataStoreEntry>> dependencies = new ConcurrentHashMap<>();
+    private final Map<DataStoreEntry, Set<DataStoreEntry>> dependents = new ConcurrentHashMap<>();
+
+    public synchronized void update(DataStoreEntry entry) {
+        var newDependencies = resolveDependencies(entry);
+        var oldDependencies = newDependencies.isEmpty()
+                ? dependencies.remove(entry)
+                : dependencies.put(entry, newDependencies);
+        if (oldDependencies != null) {
+            for (DataStoreEntry dep : oldDependencies) {
+                if (!newDependencies.contains(dep)) {
+                    removeDependent(dep, entry);
+                }
+            }
+        }
+
+        for (DataStoreEntry dep : newDependencies) {
+            dependents.computeIfAbsent(dep, k -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+    }
+
+    public synchronized void remove(DataStoreEntry entry) {
+        // Entries depending on the removed entry stay indexed, the reference is still there
+        var oldDependencies = dependencies.remove(entry);
+        if (oldDependencies != null) {
+            for (DataStoreEntry dep : oldDependencies) {
+                removeDependent(dep, entry);
+            }
+        }
+    }
+
+    public synchronized void refresh(Collection<DataStoreEntry> entries) {
+        entries.forEach(this::update);
+        for (DataStoreEntry indexed : new ArrayList<>(dependencies.keySet())) {
+            if (!entries.contains(indexed)) {
+                remove(indexed);
+            }
+        }
+    }
+
+    public Set<DataStoreEntry> getDirectDependents(DataStoreEntry entry) {
+        var set = dependents.get(entry);
+        return set != null ? Collections.unmodifiableSet(set) : Set.of();
+    }
+
+    public SequencedSet<DataStoreEntry> getDependents(DataStoreEntry entry) {
+        var found = new LinkedHashSet<DataStoreEntry>();
+        var queue = new ArrayDeque<DataStoreEntry>();
+        queue.add(entry);
+        while (!queue.isEmpty()) {
+            var current = queue.poll();
+            for (DataStoreEntry dependent : getDirectDependents(current)) {
+                // Guard against loops
+                if (!dependent.equals(entry) && found.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        return found;
+    }
+
+    private void removeDependent(DataStoreEntry dependency, DataStoreEntry dependent) {
+        var set = dependents.get(dependency);
+        if (set != null) {
+            set.remove(dependent);
+            if (set.isEmpty()) {
+                dependents.remove(dependency);
+            }
+        }
+    }
+
+    private Set<DataStoreEntry> resolveDependencies(DataStoreEntry entry) {
+        var store = entry.getStore();
+        if (store == null) {
+            return Set.of();
+        }
+
+        try {
+            var deps = store.getDependencies();
+            if (deps == null || deps.isEmpty()) {
+                return Set.of();
+            }
+
+            var set = new HashSet<DataStoreEntry>();
+            for (DataStoreEntryRef<?> dep : deps) {
+                if (dep != null && dep.get() != null && !dep.get().equals(entry)) {
+                    set.add(dep.get());
+                }
+            }
+            return set;
+        } catch (Exception ex) {
+            return Set.of();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package io.xpipe.app.storage;
+
+import io.xpipe.app.ext.DataStore;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+class DataStorageEntryIndex {
+
+    private final Map<UUID, DataStoreEntry> byUuid = new ConcurrentHashMap<>();
+    private final Map<String, Set<DataStoreEntry>> byName = new ConcurrentHashMap<>();
+    private final Map<IdentityKey, DataStoreEntry> byIdentity = new ConcurrentHashMap<>();
+    private final Map<EqualityKey, Set<DataStoreEntry>> byEquality = new ConcurrentHashMap<>();
+    private final Set<DataStoreEntry> unindexable = ConcurrentHashMap.newKeySet();
+    private final Map<IdentityKey, DataStore> moved = new ConcurrentHashMap<>();
+    private final Map<DataStoreEntry, Keys> keys = new ConcurrentHashMap<>();
+
+    public synchronized void add(DataStoreEntry entry) {
+        byUuid.put(entry.getUuid(), entry);
+        update(entry);
+    }
+
+    public synchronized void update(DataStoreEntry entry) {
+        if (byUuid.get(entry.getUuid()) != entry) {
+            return;
+        }
+
+        var newKeys = Keys.of(entry);
+        var oldKeys = keys.put(entry, newKeys);
+        if (newKeys.equals(oldKeys)) {
+            return;
+        }
+
+        if (oldKeys != null) {
+            removeKeys(entry, oldKeys);
+        }
+
+        if (newKeys.name() != null) {
+            byName.computeIfAbsent(newKeys.name(), k -> ConcurrentHashMap.newKeySet())
+                    .add(entry);
+        }
+        if (newKeys.identity() != null) {
+            byIdentity.put(newKeys.identity(), entry);
+        }
+        if (newKeys.equality() != null) {
+            byEquality.computeIfAbsent(newKeys.equality(), k -> ConcurrentHashMap.newKeySet())
+                    .add(entry);
+        } else if (newKeys.identity() != null) {
+            unindexable.add(entry);
+        }
+    }
+
+    public synchronized void remove(DataStoreEntry entry) {
+        byUuid.remove(entry.getUuid(), entry);
+        var oldKeys = keys.remove(entry);
+        if (oldKeys != null) {
+            removeKeys(entry, oldKeys);
+        }
+    }
+
+    public void move(DataStore from, DataStore to) {
+        moved.put(new IdentityKey(from), to);
+    }
+
+    public Optional<DataStoreEntry> getByUuid(UUID uuid) {
+        return Optional.ofNullable(byUuid.get(uuid));
+    }
+
+    public Optional<DataStoreEntry> getByName(String name) {
+        var set = byName.get(normalizeName(name));
+        if (set == null) {
+            return Optional.empty();
+        }
+
+        return set.stream().findFirst();
+    }
+
+    public Optional<DataStoreEntry> getByStore(DataStore store, boolean identityOnly) {
+        var found = byIdentity.get(new IdentityKey(store));
+        if (found == null && !identityOnly) {
+            var key = EqualityKey.of(store);
+            var set = key != null ? byEquality.get(key) : null;
+            found = set != null ? set.stream().findFirst().orElse(null) : null;
+            if (found == null) {
+                // Stores that can't compute a hash can only be found by comparing them with every candidate
+                var candidates = key != null ? unindexable : byUuid.values();
+                found = candidates.stream()
+                        .filter(entry -> isEqual(store, entry.getStore()))
+                        .findFirst()
+                        .orElse(null);
+            }
+        }
+
+        if (found != null) {
+            return Optional.of(found);
+        }
+
+        var movedStore = moved.get(new IdentityKey(store));
+        if (movedStore != null && movedStore != store) {
+            return getByStore(movedStore, identityOnly);
+        }
+
+        return Optional.empty();
+    }
+
+    public Optional<DataStore> getMoved(DataStore store) {
+        return Optional.ofNullable(moved.get(new IdentityKey(store)));
+    }
+
+    private static boolean isEqual(DataStore store, DataStore other) {
+        try {
+            return other != null && store.equals(other);
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
+    private void removeKeys(DataStoreEntry entry, Keys oldKeys) {
+        if (oldKeys.name() != null) {
+            removeFromSet(byName, oldKeys.name(), entry);
+        }
+        if (oldKeys.identity() != null) {
+            byIdentity.remove(oldKeys.identity(), entry);
+        }
+        if (oldKeys.equality() != null) {
+            removeFromSet(byEquality, oldKeys.equality(), entry);
+        }
+        unindexable.remove(entry);
+    }
+
+    private static <K> void removeFromSet(Map<K, Set<DataStoreEntry>> map, K key, DataStoreEntry entry) {
+        var set = map.get(key);
+        if (set != null) {
+            set.remove(entry);
+            if (set.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private record Keys(String name, IdentityKey identity, EqualityKey equality) {
+
+        private static Keys of(DataStoreEntry entry) {
+            var store = entry.getStore();
+            return new Keys(
+                    entry.getName() != null ? normalizeName(entry.getName()) : null,
+                    store != null ? new IdentityKey(store) : null,
+                    store != null ? EqualityKey.of(store) : null);
+        }
+    }
+
+    private record IdentityKey(DataStore store) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey other && other.store == store;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(store);
+        }
+    }
+
+    private record EqualityKey(Class<?> type, DataStore store, int hash) {
+
+        private static EqualityKey of(DataStore store) {
+            try {
+                return new EqualityKey(store.getClass(), store, store.hashCode());
+            } catch (Exception ex) {
+                // Some incomplete stores might not be able to compute a hash
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EqualityKey other
+                    && other.hash == hash
+                    && other.type.equals(type)
+                    && other.store.equals(store);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
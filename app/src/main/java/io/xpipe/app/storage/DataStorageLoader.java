@@ -0,0 +1,158 @@
+package io.xpipe.app.storage;
+
+import io.xpipe.app.issue.ErrorEventFactory;
+import io.xpipe.app.issue.TrackEvent;
+import io.xpipe.core.FailableFunction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+class DataStorageLoader {
+
+    private static final int MAX_PARALLEL_OPERATIONS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final Duration STALE_TEMP_FILE_AGE = Duration.ofMinutes(1);
+
+    private final Map<Path, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+    public <T> List<Result<T>> load(
+            List<Path> dirs, Predicate<Path> skipIfUnchanged, FailableFunction<Path, Optional<T>, Exception> reader) {
+        var start = System.currentTimeMillis();
+        var toRead = new ArrayList<Path>();
+        for (Path dir : dirs) {
+            deleteStaleTempFiles(dir);
+            var current = Fingerprint.of(dir);
+            var previous = current != null ? fingerprints.put(dir, current) : fingerprints.remove(dir);
+            if (current != null && current.equals(previous) && skipIfUnchanged.test(dir)) {
+                continue;
+            }
+
+            toRead.add(dir);
+        }
+
+        List<Result<T>> results = runParallel(toRead, dir -> {
+            try {
+                return new Result<>(dir, reader.apply(dir).orElse(null), null);
+            } catch (Exception ex) {
+                // Don't remember broken directories so that they are read again on the next reload
+                fingerprints.remove(dir);
+                return new Result<>(dir, null, ex);
+            }
+        });
+
+        TrackEvent.withTrace("Loaded storage directories")
+                .tag("total", dirs.size())
+                .tag("read", toRead.size())
+                .tag("duration", System.currentTimeMillis() - start)
+                .handle();
+        return results;
+    }
+
+    private static boolean isTempFile(Path file) {
+        return file.getFileName().toString().endsWith(TEMP_FILE_SUFFIX);
+    }
+
+    private static void deleteStaleTempFiles(Path dir) {
+        // Temp files are left behind if a write was interrupted, e.g. by a crash
+        // Recent ones might still belong to a write that is in progress
+        var threshold = Instant.now().minus(STALE_TEMP_FILE_AGE);
+        try (var s = Files.list(dir)) {
+            for (Path file : s.filter(DataStorageLoader::isTempFile).toList()) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(threshold)) {
+                    TrackEvent.withDebug("Deleting stale temp file")
+                            .tag("file", file)
+                            .handle();
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            ErrorEventFactory.fromThrowable(e).omit().expected().handle();
+        }
+    }
+
+    static <T, R> List<R> runParallel(List<T> items, Function<T, R> function) {
+        var results = new ArrayList<R>(items.size());
+        var permits = new Semaphore(MAX_PARALLEL_OPERATIONS);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<R>>(items.size());
+            for (T item : items) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return function.apply(item);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            for (Future<R> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException(ex.getCause());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    public void update(Path dir) {
+        var current = Fingerprint.of(dir);
+        if (current != null) {
+            fingerprints.put(dir, current);
+        } else {
+            fingerprints.remove(dir);
+        }
+    }
+
+    public void invalidate(Path dir) {
+        fingerprints.remove(dir);
+    }
+
+    public record Result<T>(Path directory, T value, Exception exception) {}
+
+    private record Fingerprint(long directoryModified, long filesModified, long filesSize, int fileCount) {
+
+        private static Fingerprint of(Path dir) {
+            try {
+                var dirAttributes = Files.readAttributes(dir, BasicFileAttributes.class);
+                long modified = 0;
+                long size = 0;
+                int count = 0;
+                try (var s = Files.list(dir)) {
+                    // Temp files are not part of the stored data
+                    for (Path file : s.filter(file -> !isTempFile(file)).toList()) {
+                        var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        modified += attributes.lastModifiedTime().toMillis();
+                        size += attributes.size();
+                        count++;
+                    }
+                }
+                return new Fingerprint(
+                        dirAttributes.lastModifiedTime().toMillis(), modified, size, count);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package io.xpipe.app.storage;
 
-import java.util.ArrayList;
-import java.util.List;
+import io.xpipe.app.util.GlobHelper;
+
+import java.util.*;
 import java.util.regex.Pattern;
 
 public class DataStorageQuery {
 
+    private static final int MAX_CACHED_FILTERS = 256;
+    private static final Map<String, Filter> FILTER_CACHE =
+            Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Filter> eldest) {
+                    return size() > MAX_CACHED_FILTERS;
+                }
+            });
+
     public static List<DataStoreEntry> queryUserInput(String input) {
         var found = queryEntry("**", "**" + input + "**", "*");
         if (found.size() > 1) {
@@ -34,12 +44,12 @@ public class DataStorageQuery {
             return List.of();
         }
 
-        var catMatcher = Pattern.compile(toRegex(categoryFilter.toLowerCase()));
+        var catMatcher = compile(categoryFilter);
 
         List<DataStoreCategory> found = new ArrayList<>();
         for (DataStoreCategory cat : DataStorage.get().getStoreCategories()) {
             var c = DataStorage.get().getStorePath(cat).toString();
-            if (!catMatcher.matcher(c).matches()) {
+            if (!catMatcher.matches(c)) {
                 continue;
             }
 
@@ -53,9 +63,13 @@ public class DataStorageQuery {
             return List.of();
         }
 
-        var catMatcher = Pattern.compile(toRegex(categoryFilter.toLowerCase()));
-        var conMatcher = Pattern.compile(toRegex(connectionFilter.toLowerCase()));
-        var typeMatcher = Pattern.compile(toRegex(typeFilter.toLowerCase()));
+        var catMatcher = compile(categoryFilter);
+        var conMatcher = compile(connectionFilter);
+        var typeMatcher = compile(typeFilter);
+
+        // There are only a few categories and types, so only match them once per query
+        var categoryMatches = new HashMap<UUID, Boolean>();
+        var typeMatches = new HashMap<String, Boolean>();
 
         List<DataStoreEntry> found = new ArrayList<>();
         for (DataStoreEntry storeEntry : DataStorage.get().getStoreEntries()) {
@@ -63,26 +77,23 @@ public class DataStorageQuery {
                 continue;
             }
 
-            var name = DataStorage.get().getStorePath(storeEntry).toString();
-            if (!conMatcher.matcher(name).matches()) {
-                continue;
-            }
-
-            var cat = DataStorage.get()
-                    .getStoreCategoryIfPresent(storeEntry.getCategoryUuid())
-                    .orElse(null);
-            if (cat == null) {
+            var catMatch = categoryMatches.computeIfAbsent(storeEntry.getCategoryUuid(), uuid -> DataStorage.get()
+                    .getStoreCategoryIfPresent(uuid)
+                    .map(cat -> catMatcher.matches(
+                            DataStorage.get().getStorePath(cat).toString()))
+                    .orElse(false));
+            if (!catMatch) {
                 continue;
             }
 
-            var c = DataStorage.get().getStorePath(cat).toString();
-            if (!catMatcher.matcher(c).matches()) {
+            var typeMatch = typeMatches.computeIfAbsent(
+                    storeEntry.getProvider().getId(), id -> typeMatcher.matches(id.toLowerCase()));
+            if (!typeMatch) {
                 continue;
             }
 
-            if (!typeMatcher
-                    .matcher(storeEntry.getProvider().getId().toLowerCase())
-                    .matches()) {
+            var name = DataStorage.get().getStorePath(storeEntry).toString();
+            if (!conMatcher.matches(name)) {
                 continue;
             }
 
@@ -91,106 +102,37 @@ public class DataStorageQuery {
         return found;
     }
 
-    public static String toRegex(String pattern) {
-        pattern = pattern.replaceAll("\\*\\*", "#");
-        // https://stackoverflow.com/a/17369948/6477761
-        StringBuilder sb = new StringBuilder(pattern.length());
-        int inGroup = 0;
-        int inClass = 0;
-        int firstIndexInClass = -1;
-        char[] arr = pattern.toCharArray();
-        for (int i = 0; i < arr.length; i++) {
-            char ch = arr[i];
-            switch (ch) {
-                case '\\':
-                    if (++i >= arr.length) {
-                        sb.append('\\');
-                    } else {
-                        char next = arr[i];
-                        switch (next) {
-                            case ',':
-                                // escape not needed
-                                break;
-                            case 'Q':
-                            case 'E':
-                                // extra escape needed
-                                sb.append('\\');
-                            default:
-                                sb.append('\\');
-                        }
-                        sb.append(next);
-                    }
-                    break;
-                case '*':
-                    if (inClass == 0) {
-                        sb.append("[^/]*");
-                    } else {
-                        sb.append('*');
-                    }
-                    break;
-                case '#':
-                    if (inClass == 0) {
-                        sb.append(".*");
-                    } else {
-                        sb.append('*');
-                    }
-                    break;
-                case '?':
-                    if (inClass == 0) {
-                        sb.append('.');
-                    } else {
-                        sb.append('?');
-                    }
-                    break;
-                case '[':
-                    inClass++;
-                    firstIndexInClass = i + 1;
-                    sb.append('[');
-                    break;
-                case ']':
-                    inClass--;
-                    sb.append(']');
-                    break;
-                case '.':
-                case '(':
-                case ')':
-                case '+':
-                case '|':
-                case '^':
-                case '$':
-                case '@':
-                case '%':
-                    if (inClass == 0 || (firstIndexInClass == i && ch == '^')) {
-                        sb.append('\\');
-                    }
-                    sb.append(ch);
-                    break;
-                case '!':
-                    if (firstIndexInClass == i) {
-                        sb.append('^');
-                    } else {
-                        sb.append('!');
-                    }
-                    break;
-                case '{':
-                    inGroup++;
-                    sb.append('(');
-                    break;
-                case '}':
-                    inGroup--;
-                    sb.append(')');
-                    break;
-                case ',':
-                    if (inGroup > 0) {
-                        sb.append('|');
-                    } else {
-                        sb.append(',');
-                    }
-                    break;
-                default:
-                    sb.append(ch);
+    private static Filter compile(String filter) {
+        return FILTER_CACHE.computeIfAbsent(filter.toLowerCase(), Filter::of);
+    }
+
+    private record Filter(String literalPrefix, boolean literal, Pattern pattern) {
+
+        private static final String SPECIAL_CHARS = "*?[]{}\\,!#";
+
+        private static Filter of(String filter) {
+            var prefixEnd = 0;
+            while (prefixEnd < filter.length() && SPECIAL_CHARS.indexOf(filter.charAt(prefixEnd)) == -1) {
+                prefixEnd++;
+            }
+
+            var literal = prefixEnd == filter.length();
+            return new Filter(
+                    filter.substring(0, prefixEnd),
+                    literal,
+                    literal ? null : Pattern.compile(GlobHelper.toRegex(filter)));
+        }
+
+        private boolean matches(String s) {
+            if (!s.startsWith(literalPrefix)) {
+                return false;
             }
+
+            if (literal) {
+                return s.length() == literalPrefix.length();
+            }
+
+            return pattern.matcher(s).matches();
         }
-        return sb.toString();
     }
 }
@@ -0,0 +1,67 @@
+package io.xpipe.app.storage;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class DataStorageSaveJournal {
+
+    private final Set<StorageElement> dirtyElements = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Start with a full save to write everything that was loaded or created on startup
+    private volatile boolean fullSaveRequested = true;
+    private volatile boolean removalsPending = true;
+
+    @Getter
+    private volatile Metrics lastMetrics;
+
+    public void markDirty(StorageElement element) {
+        dirtyElements.add(element);
+    }
+
+    public void markRemoved() {
+        removalsPending = true;
+    }
+
+    public void requestFullSave() {
+        fullSaveRequested = true;
+    }
+
+    public boolean scheduleFlush() {
+        return flushScheduled.compareAndSet(false, true);
+    }
+
+    public void clearScheduledFlush() {
+        flushScheduled.set(false);
+    }
+
+    public Batch drain() {
+        var full = fullSaveRequested;
+        var removals = removalsPending;
+        fullSaveRequested = false;
+        removalsPending = false;
+
+        var elements = new ArrayList<StorageElement>(dirtyElements.size());
+        for (StorageElement element : dirtyElements) {
+            // Elements added while draining are kept for the next flush
+            if (dirtyElements.remove(element)) {
+                elements.add(element);
+            }
+        }
+        return new Batch(full, full || removals, elements);
+    }
+
+    public void record(Metrics metrics) {
+        lastMetrics = metrics;
+    }
+
+    public record Batch(boolean full, boolean deleteLeftovers, List<StorageElement> elements) {}
+
+    public record Metrics(boolean full, int elementsWritten, long bytesWritten, Duration duration) {}
+}
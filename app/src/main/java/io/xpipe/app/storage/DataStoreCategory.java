@@ -259,9 +259,9 @@ public class DataStoreCategory extends StorageElement {
         return new Path[] {directory.resolve("category.json")};
     }
 
-    public void writeDataToDisk() throws Exception {
+    public long writeDataToDisk() throws Exception {
         if (!dirty) {
-            return;
+            return 0;
         }
 
         // Reset the dirty state early
@@ -284,7 +284,9 @@ public class DataStoreCategory extends StorageElement {
         var entryString = mapper.writeValueAsString(obj);
         var stateString = mapper.writeValueAsString(stateObj);
         FileUtils.forceMkdir(directory.toFile());
-        Files.writeString(directory.resolve("category.json"), entryString);
-        Files.writeString(directory.resolve("state.json"), stateString);
+        long written = 0;
+        written += writeFile(directory.resolve("category.json"), entryString);
+        written += writeFile(directory.resolve("state.json"), stateString);
+        return written;
     }
 }
@@ -503,6 +503,15 @@ public class DataStoreEntry extends StorageElement {
         }
     }
 
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        var storage = DataStorage.get();
+        if (storage != null) {
+            storage.onEntryRename(this);
+        }
+    }
+
     public void setCategoryUuid(UUID categoryUuid) {
         var changed = !Objects.equals(this.categoryUuid, categoryUuid);
         this.categoryUuid = categoryUuid;
@@ -524,9 +533,9 @@ public class DataStoreEntry extends StorageElement {
                 .toArray(Path[]::new);
     }
 
-    public void writeDataToDisk() throws Exception {
+    public long writeDataToDisk() throws Exception {
         if (!dirty) {
-            return;
+            return 0;
         }
 
         // Reset the dirty state early
@@ -563,9 +572,10 @@ public class DataStoreEntry extends StorageElement {
         var storeString = mapper.writeValueAsString(DataStorageNode.encryptNodeIfNeeded(storeNode));
 
         FileUtils.forceMkdir(directory.toFile());
-        Files.writeString(directory.resolve("state.json"), stateString);
-        Files.writeString(directory.resolve("entry.json"), entryString);
-        Files.writeString(directory.resolve("store.json"), storeString);
+        long written = 0;
+        written += writeFile(directory.resolve("state.json"), stateString);
+        written += writeFile(directory.resolve("entry.json"), entryString);
+        written += writeFile(directory.resolve("store.json"), storeString);
 
         var encryptNotes = storeNode.isEncrypted();
         var normalNotesFile = directory.resolve("notes.md");
@@ -582,11 +592,12 @@ public class DataStoreEntry extends StorageElement {
             var storageNode = DataStorageNode.encryptNodeIfNeeded(new DataStorageNode(
                     notesNode, storeNode.isPerUser(), storeNode.isReadableForUser(), storeNode.isEncrypted()));
             var string = mapper.writeValueAsString(storageNode);
-            Files.writeString(encryptedNotesFile, string);
+            written += writeFile(encryptedNotesFile, string);
         } else if (notes != null) {
-            Files.writeString(normalNotesFile, notes);
+            written += writeFile(normalNotesFile, notes);
         }
         lastWrittenNotes = notes;
+        return written;
     }
 
     public void setNotes(String newNotes) {
@@ -610,7 +621,7 @@ public class DataStoreEntry extends StorageElement {
         this.pinToTop = newValue;
         if (changed) {
             notifyUpdate(false, false);
-            dirty = true;
+            markDirty();
         }
     }
 
@@ -655,7 +666,7 @@ public class DataStoreEntry extends StorageElement {
             lastModified = Instant.now();
         }
         childrenCache = null;
-        dirty = true;
+        markDirty();
         notifyUpdate(false, updateTime);
     }
 
@@ -668,7 +679,7 @@ public class DataStoreEntry extends StorageElement {
         var changed = !Objects.equals(this.storeNode.getContentNode(), newNode.getContentNode()) || this.storeNode.isEncrypted() != newNode.isEncrypted();
         if (changed) {
             this.storeNode = newNode;
-            dirty = true;
+            markDirty();
         }
     }
 
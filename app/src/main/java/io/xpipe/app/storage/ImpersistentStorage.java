@@ -56,7 +56,7 @@ public class ImpersistentStorage extends DataStorage {
 
         var e = DataStoreEntry.createNew(
                 LOCAL_ID, DataStorage.DEFAULT_CATEGORY_UUID, "Local Machine", new LocalStore());
-        storeEntries.put(e, e);
+        putStoreEntryInternal(e);
         e.validate();
 
         entriesAvailable = true;
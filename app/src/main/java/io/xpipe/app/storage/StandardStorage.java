@@ -23,11 +23,16 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 public class StandardStorage extends DataStorage {
 
+    private static final Duration SAVE_COALESCE_DELAY = Duration.ofMillis(200);
+
     private final Set<Path> directoriesToKeep = new HashSet<>();
 
     @Getter
@@ -37,6 +42,9 @@ public class StandardStorage extends DataStorage {
     private final DataStorageUserHandler dataStorageUserHandler;
 
     private final ReentrantLock busyIo = new ReentrantLock();
+    private final DataStorageLoader entryLoader = new DataStorageLoader();
+    private final DataStorageLoader categoryLoader = new DataStorageLoader();
+    private final DataStorageSaveJournal saveJournal = new DataStorageSaveJournal();
     private DataStorageVaultKey vaultKey;
 
     @Getter
@@ -116,38 +124,48 @@ public class StandardStorage extends DataStorage {
         var laterAddedEntries = new HashSet<DataStoreEntry>();
         try {
             var exception = new AtomicReference<Exception>();
+            List<Path> categoryDirs;
             try (var cats = Files.list(categoriesDir)) {
-                cats.filter(Files::isDirectory).forEach(path -> {
-                    try {
-                        var c = DataStoreCategory.fromDirectory(path);
-                        if (c.isEmpty()) {
-                            return;
-                        }
+                categoryDirs = cats.filter(Files::isDirectory).toList();
+            }
+            var loadedCategories = categoryLoader.load(
+                    categoryDirs,
+                    path -> !initialLoad && isLoaded(path, uuid -> getStoreCategoryIfPresent(uuid)),
+                    DataStoreCategory::fromDirectory);
+            for (var loaded : loadedCategories) {
+                try {
+                    if (loaded.exception() != null) {
+                        throw loaded.exception();
+                    }
 
-                        if (initialLoad) {
-                            storeCategories.add(c.get());
-                            return;
-                        }
+                    var c = loaded.value();
+                    if (c == null) {
+                        continue;
+                    }
 
-                        var existing = getStoreCategoryIfPresent(c.get().getUuid());
-                        if (existing.isPresent()) {
-                            if (existing.get().isChangedForReload(c.get())) {
-                                updateCategory(existing.get(), c.get());
-                            }
-                            return;
-                        }
+                    if (initialLoad) {
+                        storeCategories.add(c);
+                        continue;
+                    }
 
-                        addStoreCategory(c.get());
-                    } // IO exceptions are not expected
-                    catch (Exception ex) {
-                        // Data corruption and schema changes are expected
-                        ErrorEventFactory.fromThrowable(ex)
-                                .expected()
-                                .omit()
-                                .build()
-                                .handle();
+                    var existing = getStoreCategoryIfPresent(c.getUuid());
+                    if (existing.isPresent()) {
+                        if (existing.get().isChangedForReload(c)) {
+                            updateCategory(existing.get(), c);
+                        }
+                        continue;
                     }
-                });
+
+                    addStoreCategory(c);
+                } // IO exceptions are not expected
+                catch (Exception ex) {
+                    // Data corruption and schema changes are expected
+                    ErrorEventFactory.fromThrowable(ex)
+                            .expected()
+                            .omit()
+                            .build()
+                            .handle();
+                }
             }
 
             // Show one exception
@@ -164,68 +182,81 @@ public class StandardStorage extends DataStorage {
                 }
             }
 
+            List<Path> storeDirs;
             try (var dirs = Files.list(storesDir)) {
-                dirs.filter(Files::isDirectory).forEach(path -> {
-                    try {
-                        var entry = DataStoreEntry.fromDirectory(path);
-                        if (entry.isEmpty()) {
-                            return;
-                        }
-
-                        if (initialLoad) {
-                            var foundCat = getStoreCategoryIfPresent(entry.get().getCategoryUuid());
-                            if (foundCat.isEmpty()) {
-                                entry.get().setCategoryUuid(null);
-                            }
+                storeDirs = dirs.filter(Files::isDirectory).toList();
+            }
+            // Reading and decrypting the entry files is the expensive part, so do it in parallel
+            // Applying the loaded entries to the storage is still done sequentially
+            var loadedEntries = entryLoader.load(
+                    storeDirs,
+                    path -> !initialLoad && isLoaded(path, uuid -> getStoreEntryIfPresent(uuid)),
+                    DataStoreEntry::fromDirectory);
+            for (var loaded : loadedEntries) {
+                var path = loaded.directory();
+                try {
+                    if (loaded.exception() != null) {
+                        throw loaded.exception();
+                    }
 
-                            storeEntries.put(entry.get(), entry.get());
-                            return;
-                        }
+                    var entry = loaded.value();
+                    if (entry == null) {
+                        continue;
+                    }
 
-                        var existing = getStoreEntryIfPresent(entry.get().getUuid());
-                        if (existing.isPresent()) {
-                            if (existing.get().isChangedForReload(entry.get())) {
-                                updateEntry(existing.get(), entry.get());
-                            }
-                            return;
+                    if (initialLoad) {
+                        var foundCat = getStoreCategoryIfPresent(entry.getCategoryUuid());
+                        if (foundCat.isEmpty()) {
+                            entry.setCategoryUuid(null);
                         }
 
-                        laterAddedEntries.add(entry.get());
-                        storeEntries.put(entry.get(), entry.get());
-                    } // IO exceptions are not expected
-                    catch (Exception ex) {
-                        // Data corruption and schema changes are expected
+                        putStoreEntryInternal(entry);
+                        continue;
+                    }
 
-                        // We only keep invalid entries in developer mode as there's no point in keeping them in
-                        // production.
-                        if (AppProperties.get().isDevelopmentEnvironment()) {
-                            directoriesToKeep.add(path);
+                    var existing = getStoreEntryIfPresent(entry.getUuid());
+                    if (existing.isPresent()) {
+                        if (existing.get().isChangedForReload(entry)) {
+                            updateEntry(existing.get(), entry);
                         }
-
-                        ErrorEventFactory.fromThrowable(ex)
-                                .expected()
-                                .omit()
-                                .build()
-                                .handle();
+                        continue;
                     }
-                });
 
-                // Show one exception
-                if (exception.get() != null) {
-                    ErrorEventFactory.fromThrowable(exception.get()).expected().handle();
-                }
+                    laterAddedEntries.add(entry);
+                    putStoreEntryInternal(entry);
+                } // IO exceptions are not expected
+                catch (Exception ex) {
+                    // Data corruption and schema changes are expected
 
-                storeEntriesSet.forEach(e -> {
-                    if (e.getCategoryUuid() == null
-                            || getStoreCategoryIfPresent(e.getCategoryUuid()).isEmpty()) {
-                        e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
+                    // We only keep invalid entries in developer mode as there's no point in keeping them in
+                    // production.
+                    if (AppProperties.get().isDevelopmentEnvironment()) {
+                        directoriesToKeep.add(path);
                     }
 
-                    if (e.getCategoryUuid() != null && e.getCategoryUuid().equals(ALL_CONNECTIONS_CATEGORY_UUID)) {
-                        e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
-                    }
-                });
+                    ErrorEventFactory.fromThrowable(ex)
+                            .expected()
+                            .omit()
+                            .build()
+                            .handle();
+                }
             }
+
+            // Show one exception
+            if (exception.get() != null) {
+                ErrorEventFactory.fromThrowable(exception.get()).expected().handle();
+            }
+
+            storeEntriesSet.forEach(e -> {
+                if (e.getCategoryUuid() == null
+                        || getStoreCategoryIfPresent(e.getCategoryUuid()).isEmpty()) {
+                    e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
+                }
+
+                if (e.getCategoryUuid() != null && e.getCategoryUuid().equals(ALL_CONNECTIONS_CATEGORY_UUID)) {
+                    e.setCategoryUuid(DEFAULT_CATEGORY_UUID);
+                }
+            });
         } catch (IOException ex) {
             ErrorEventFactory.fromThrowable(ex).terminal(true).build().handle();
         }
@@ -236,7 +267,7 @@ public class StandardStorage extends DataStorage {
             var local = getStoreEntry(LOCAL_ID);
             if (local.getValidity() == DataStoreEntry.Validity.LOAD_FAILED) {
                 try {
-                    storeEntries.remove(local);
+                    removeStoreEntryInternal(local);
                     local.deleteFromDisk();
                     hasFixedLocal = false;
                 } catch (IOException ex) {
@@ -253,7 +284,7 @@ public class StandardStorage extends DataStorage {
             var e = DataStoreEntry.createNew(
                     LOCAL_ID, DataStorage.DEFAULT_CATEGORY_UUID, "Local Machine", new LocalStore());
             e.setDirectory(getStoresDir().resolve(LOCAL_ID.toString()));
-            storeEntries.put(e, e);
+            putStoreEntryInternal(e);
             e.validate();
         }
 
@@ -263,17 +294,14 @@ public class StandardStorage extends DataStorage {
         }
 
         // Reload stores, this time with all entry refs present
-        // These do however not have a completed validity yet
-        refreshEntries();
-        // Bring entries into completed validity if possible
-        // Needed for chained stores
-        refreshEntries();
+        // Repeat until all chained stores are brought into completed validity if possible
+        refreshEntriesUntilStable();
         if (initialLoad) {
             // Let providers work on complete stores
             callProviders();
         }
         // Update validities after any possible changes
-        refreshEntries();
+        refreshEntriesUntilStable();
         // Add any possible missing synthetic parents
         storeEntriesSet.forEach(entry -> {
             var syntheticParent = getSyntheticParent(entry);
@@ -283,28 +311,43 @@ public class StandardStorage extends DataStorage {
         });
         entriesAvailable = true;
         // Update validities from synthetic parent changes and entries available flag changes
-        refreshEntries();
+        refreshEntriesUntilStable();
         // Remove user inaccessible entries only when everything is valid, so we can check the parent hierarchies
-        filterPerUserEntries(storeEntries.keySet());
+        filterPerUserEntries();
 
         // Only add new stores if really necessary
         laterAddedEntries.stream()
                 .filter(dataStoreEntry -> storeEntries.containsKey(dataStoreEntry))
                 .forEach(e -> {
-                    storeEntries.remove(e);
+                    removeStoreEntryInternal(e);
                     addStoreEntryIfNotPresent(e);
                 });
 
         // Refresh validities after entries have potentially been removed
-        refreshEntries();
+        refreshEntriesUntilStable();
 
         deleteLeftovers();
 
+        // Reloaded entries might not have been registered as dirty
+        saveJournal.requestFullSave();
+
         this.dataStorageSyncHandler.afterStorageLoad();
 
         busyIo.unlock();
     }
 
+    private record WriteResult<T extends StorageElement>(
+            T element, boolean exists, boolean dirty, long bytes, Exception exception) {}
+
+    private boolean isLoaded(Path dir, Function<UUID, Optional<?>> lookup) {
+        try {
+            var uuid = UUID.fromString(dir.getFileName().toString());
+            return lookup.apply(uuid).isPresent();
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
     @Override
     public DataStorageVaultKey getVaultKey() {
         return vaultKey;
@@ -374,7 +417,14 @@ public class StandardStorage extends DataStorage {
             return;
         }
 
+        // Coalesce bursts of save requests, e.g. from many entry updates at once, into one save
+        if (!saveJournal.scheduleFlush()) {
+            return;
+        }
+
         ThreadHelper.runAsync(() -> {
+            ThreadHelper.sleep(SAVE_COALESCE_DELAY.toMillis());
+            saveJournal.clearScheduledFlush();
             save(false);
         });
     }
@@ -429,14 +479,37 @@ public class StandardStorage extends DataStorage {
                     .handle();
         }
 
+        var start = System.currentTimeMillis();
+        var batch = saveJournal.drain();
+        // Always write everything on dispose to not lose anything
+        var full = dispose || batch.full();
+        List<DataStoreCategory> categoriesToSave = full
+                ? List.copyOf(storeCategories)
+                : batch.elements().stream()
+                        .filter(e -> e instanceof DataStoreCategory c && storeCategories.contains(c))
+                        .map(e -> (DataStoreCategory) e)
+                        .toList();
+        List<DataStoreEntry> entriesToSave = (full
+                        ? storeEntriesSet.stream()
+                        : batch.elements().stream()
+                                .filter(e -> e instanceof DataStoreEntry en && storeEntries.containsKey(en))
+                                .map(e -> (DataStoreEntry) e))
+                .filter(dataStoreEntry -> dataStoreEntry.shouldSave())
+                .toList();
+
         var exception = new AtomicReference<Exception>();
+        var written = new AtomicInteger();
+        var bytes = new AtomicLong();
 
-        storeCategories.forEach(e -> {
+        writeElements(categoriesToSave, categoryLoader).forEach(r -> {
             try {
-                var exists = Files.exists(e.getDirectory());
-                var dirty = e.isDirty();
-                e.writeDataToDisk();
-                dataStorageSyncHandler.handleCategory(e, exists, dirty);
+                if (r.exception() != null) {
+                    throw r.exception();
+                }
+
+                written.addAndGet(r.dirty() ? 1 : 0);
+                bytes.addAndGet(r.bytes());
+                dataStorageSyncHandler.handleCategory(r.element(), r.exists(), r.dirty());
             } catch (IOException ex) {
                 // IO exceptions are not expected
                 exception.set(ex);
@@ -446,31 +519,45 @@ public class StandardStorage extends DataStorage {
             }
         });
 
-        storeEntriesSet.stream()
-                .filter(dataStoreEntry -> dataStoreEntry.shouldSave())
-                .forEach(e -> {
-                    try {
-                        var exists = Files.exists(e.getDirectory());
-                        var dirty = e.isDirty();
-                        e.writeDataToDisk();
-                        dataStorageSyncHandler.handleEntry(e, exists, dirty);
-                    } catch (Exception ex) {
-                        // Data corruption and schema changes are expected
-                        exception.set(ex);
-                        ErrorEventFactory.fromThrowable(ex)
-                                .expected()
-                                .omit()
-                                .build()
-                                .handle();
-                    }
-                });
+        writeElements(entriesToSave, entryLoader).forEach(r -> {
+            try {
+                if (r.exception() != null) {
+                    throw r.exception();
+                }
+
+                written.addAndGet(r.dirty() ? 1 : 0);
+                bytes.addAndGet(r.bytes());
+                dataStorageSyncHandler.handleEntry(r.element(), r.exists(), r.dirty());
+            } catch (Exception ex) {
+                // Data corruption and schema changes are expected
+                exception.set(ex);
+                ErrorEventFactory.fromThrowable(ex)
+                        .expected()
+                        .omit()
+                        .build()
+                        .handle();
+            }
+        });
 
         // Show one exception
         if (exception.get() != null) {
             ErrorEventFactory.fromThrowable(exception.get()).expected().handle();
         }
 
-        deleteLeftovers();
+        if (batch.deleteLeftovers() || dispose) {
+            deleteLeftovers();
+        }
+
+        var metrics = new DataStorageSaveJournal.Metrics(
+                full, written.get(), bytes.get(), Duration.ofMillis(System.currentTimeMillis() - start));
+        saveJournal.record(metrics);
+        TrackEvent.withTrace("Saved storage")
+                .tag("full", metrics.full())
+                .tag("elementsWritten", metrics.elementsWritten())
+                .tag("bytesWritten", metrics.bytesWritten())
+                .tag("duration", metrics.duration().toMillis())
+                .handle();
+
         dataStorageUserHandler.save();
         dataStorageSyncHandler.afterStorageSave(true, dispose);
         if (dispose) {
@@ -487,19 +574,54 @@ public class StandardStorage extends DataStorage {
         }
     }
 
+    private <T extends StorageElement> List<WriteResult<T>> writeElements(List<T> elements, DataStorageLoader loader) {
+        return DataStorageLoader.runParallel(elements, e -> {
+            try {
+                var exists = Files.exists(e.getDirectory());
+                var dirty = e.isDirty();
+                var bytes = e.writeDataToDisk();
+                if (dirty) {
+                    loader.update(e.getDirectory());
+                }
+                return new WriteResult<>(e, exists, dirty, bytes, null);
+            } catch (Exception ex) {
+                return new WriteResult<>(e, false, false, 0, ex);
+            }
+        });
+    }
+
+    public Optional<DataStorageSaveJournal.Metrics> getLastSaveMetrics() {
+        return Optional.ofNullable(saveJournal.getLastMetrics());
+    }
+
+    @Override
+    protected void markDirty(StorageElement element) {
+        saveJournal.markDirty(element);
+    }
+
+    @Override
+    protected void markRemoved() {
+        saveJournal.markRemoved();
+    }
+
+    @Override
+    protected void requestFullSave() {
+        saveJournal.requestFullSave();
+    }
+
     @Override
     public boolean supportsSync() {
         return dataStorageSyncHandler.supportsSync();
     }
 
-    private void filterPerUserEntries(Collection<DataStoreEntry> entries) {
+    private void filterPerUserEntries() {
         var toRemove = getStoreEntries().stream()
                 .filter(dataStoreEntry -> shouldRemoveOtherUserEntry(dataStoreEntry))
                 .toList();
         directoriesToKeep.addAll(toRemove.stream()
                 .map(dataStoreEntry -> dataStoreEntry.getDirectory())
                 .toList());
-        toRemove.forEach(entries::remove);
+        toRemove.forEach(this::removeStoreEntryInternal);
     }
 
     private boolean shouldRemoveOtherUserEntry(DataStoreEntry entry) {
@@ -8,8 +8,11 @@ import lombok.experimental.NonFinal;
 import org.apache.commons.io.FileUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -100,7 +103,7 @@ public abstract class StorageElement {
         this.expanded = expanded;
 
         // Update state but don't register updated time for expanded change
-        this.dirty = true;
+        markDirty();
         synchronized (listeners) {
             listeners.forEach(l -> l.onUpdate());
         }
@@ -118,11 +121,11 @@ public abstract class StorageElement {
     public void notifyUpdate(boolean used, boolean modified) {
         if (used) {
             lastUsed = Instant.now();
-            dirty = true;
+            markDirty();
         }
         if (modified) {
             lastModified = Instant.now();
-            dirty = true;
+            markDirty();
         }
         synchronized (listeners) {
             listeners.forEach(l -> l.onUpdate());
@@ -144,7 +147,28 @@ public abstract class StorageElement {
         FileUtils.deleteDirectory(directory.toFile());
     }
 
-    public abstract void writeDataToDisk() throws Exception;
+    protected void markDirty() {
+        dirty = true;
+        var storage = DataStorage.get();
+        if (storage != null) {
+            storage.markDirty(this);
+        }
+    }
+
+    protected long writeFile(Path file, String content) throws IOException {
+        var bytes = content.getBytes(StandardCharsets.UTF_8);
+        // Write to a temp file first so that a crash or concurrent read never sees a partially written file
+        var temp = file.resolveSibling(file.getFileName() + DataStorageLoader.TEMP_FILE_SUFFIX);
+        Files.write(temp, bytes);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return bytes.length;
+    }
+
+    public abstract long writeDataToDisk() throws Exception;
 
     public synchronized Instant getLastAccess() {
         if (getLastUsed() == null) {
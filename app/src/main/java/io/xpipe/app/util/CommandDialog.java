@@ -1,60 +1,208 @@
 package io.xpipe.app.util;
 
 import io.xpipe.app.comp.RegionBuilder;
+import io.xpipe.app.comp.base.ModalButton;
 import io.xpipe.app.comp.base.ModalOverlay;
+import io.xpipe.app.platform.PlatformThread;
 import io.xpipe.app.process.CommandControl;
 import io.xpipe.app.process.ProcessOutputException;
+import io.xpipe.core.FailableSupplier;
 
+import javafx.beans.property.SimpleStringProperty;
 import javafx.scene.control.TextArea;
 import javafx.scene.layout.StackPane;
 
+import lombok.Getter;
+import lombok.Setter;
 import lombok.Value;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class CommandDialog {
 
+    private static final int MAX_OUTPUT_LENGTH = 10000;
+    private static final int MAX_OUTPUT_LINES = 100;
+
     @Value
     public static class CommandEntry {
 
         String name;
-        CommandControl command;
+        FailableSupplier<CommandControl> command;
     }
 
     public static void runMultipleAndShow(List<CommandEntry> cmds) {
-        var parts = new String[cmds.size()];
-        var latch = new CountDownLatch(parts.length);
-        for (int i = 0; i < cmds.size(); i++) {
-            var e = cmds.get(i);
-            var ii = i;
-            ThreadHelper.runAsync(() -> {
-                String out;
-                try {
-                    out = e.getCommand().readStdoutOrThrow();
-                    out = formatOutput(out);
-                } catch (ProcessOutputException ex) {
-                    out = ex.getMessage();
-                } catch (Throwable t) {
-                    out = ExceptionUtils.getStackTrace(t);
+        var executor = FanOutExecutor.ofDefaults();
+        var outputs = cmds.stream().map(e -> new HostOutput(e.getName())).toList();
+        var text = new SimpleStringProperty(render(outputs));
+        var dirty = new AtomicBoolean();
+        var finished = new AtomicBoolean();
+
+        var modal = ModalOverlay.of(
+                "commandOutput",
+                RegionBuilder.of(() -> {
+                            var area = new TextArea();
+                            area.textProperty().bind(text);
+                            area.setWrapText(true);
+                            area.setEditable(false);
+                            area.setPrefRowCount(20);
+                            var sp = new StackPane(area);
+                            return sp;
+                        })
+                        .prefWidth(650));
+        modal.addButton(new ModalButton("stop", executor::cancel, false, false));
+        modal.addButton(ModalButton.ok());
+        modal.show();
+
+        // Coalesce output updates, otherwise the platform thread would be flooded when many hosts print
+        GlobalTimer.scheduleUntil(Duration.ofMillis(250), false, () -> {
+            if (dirty.getAndSet(false)) {
+                var rendered = render(outputs);
+                PlatformThread.runLaterIfNeeded(() -> text.set(rendered));
+            }
+            return finished.get();
+        });
+
+        var indices = IntStream.range(0, cmds.size()).boxed().toList();
+        executor.runAll(indices, (i, handle) -> {
+            var output = outputs.get(i);
+            output.setStatus("running");
+            dirty.set(true);
+            try {
+                // Sessions are started here so that multiple hosts can connect at the same time
+                var command = cmds.get(i).getCommand().get();
+                if (command == null) {
+                    output.setSkipped(true);
+                    return;
+                }
+
+                var exitCode = stream(command, output, handle, () -> dirty.set(true));
+                output.setStatus("exit code " + exitCode);
+            } catch (ProcessOutputException ex) {
+                output.append(ex.getMessage());
+                output.setStatus("exit code " + ex.getExitCode());
+            } catch (Throwable t) {
+                if (!handle.isCancelled()) {
+                    output.append(ExceptionUtils.getStackTrace(t));
+                    output.setStatus("failed");
+                }
+            } finally {
+                if (handle.isTimedOut()) {
+                    output.setStatus("timed out after " + executor.getTimeout().toSeconds() + "s");
+                } else if (handle.isCancelled()) {
+                    output.setStatus("stopped");
                 }
+                dirty.set(true);
+            }
+        });
 
-                var s = e.getName() + " (exit code " + e.getCommand().getExitCode() + "):\n" + out;
-                parts[ii] = s;
-                latch.countDown();
+        outputs.stream()
+                .filter(output -> output.getStatus().equals("waiting"))
+                .forEach(output -> output.setStatus("stopped"));
+        finished.set(true);
+        var rendered = render(outputs);
+        PlatformThread.runLaterIfNeeded(() -> text.set(rendered));
+    }
+
+    private static long stream(
+            CommandControl command, HostOutput output, FanOutExecutor.Handle handle, Runnable onUpdate)
+            throws Exception {
+        try (var c = command.start()) {
+            handle.onCancel(c::killExternal);
+
+            // Stderr has to be read concurrently so the command can't block on a full pipe
+            var stderr = new StringBuilder();
+            var stderrThread = ThreadHelper.runAsync(() -> {
+                try {
+                    var reader = new BufferedReader(new InputStreamReader(c.getStderr(), c.getCharset()));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        stderr.append(line).append("\n");
+                    }
+                } catch (IOException ignored) {
+                }
             });
+
+            var reader = new BufferedReader(new InputStreamReader(c.getStdout(), c.getCharset()));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append(line);
+                onUpdate.run();
+            }
+
+            stderrThread.join();
+            c.close();
+            var exitCode = c.getExitCode();
+            if (exitCode != 0 && !stderr.isEmpty()) {
+                output.append(stderr.toString().strip());
+            }
+            return exitCode;
         }
+    }
 
-        try {
-            latch.await();
-        } catch (InterruptedException ignored) {
+    private static String render(List<HostOutput> outputs) {
+        return outputs.stream()
+                .filter(output -> !output.isSkipped())
+                .map(HostOutput::render)
+                .collect(Collectors.joining("\n\n"));
+    }
+
+    private static class HostOutput {
+
+        private final String name;
+        private final StringBuilder output = new StringBuilder();
+        private long droppedLines;
+
+        @Getter
+        @Setter
+        private volatile String status = "waiting";
+
+        @Getter
+        @Setter
+        private volatile boolean skipped;
+
+        private HostOutput(String name) {
+            this.name = name;
+        }
+
+        private synchronized void append(String text) {
+            // Stop buffering once the output can't be shown completely anyway
+            if (output.length() > MAX_OUTPUT_LENGTH) {
+                droppedLines += text.lines().count();
+                return;
+            }
+
+            if (!output.isEmpty()) {
+                output.append("\n");
+            }
+            output.append(text);
         }
 
-        var joined = String.join("\n\n", parts);
-        show(joined);
+        private synchronized String render() {
+            var header = name + " (" + status + ")";
+            if (output.isEmpty()) {
+                return status.startsWith("exit code") ? header + ":\n<empty>" : header;
+            }
+
+            var text = output.toString();
+            if (text.length() > MAX_OUTPUT_LENGTH || droppedLines > 0) {
+                var lines = text.lines().toList();
+                var more = Math.max(0, lines.size() - MAX_OUTPUT_LINES) + droppedLines;
+                text = lines.stream().limit(MAX_OUTPUT_LINES).collect(Collectors.joining("\n"));
+                if (more > 0) {
+                    text = text + "\n\n... " + more + " more lines";
+                }
+            }
+            return header + ":\n" + text;
+        }
     }
 
     public static void runAndShow(CommandControl cmd) {
@@ -0,0 +1,139 @@
+package io.xpipe.app.util;
+
+import io.xpipe.app.core.AppProperties;
+import io.xpipe.app.issue.ErrorEventFactory;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+
+public class FanOutExecutor {
+
+    private static final int DEFAULT_CONCURRENCY = 16;
+
+    @Getter
+    private final int concurrency;
+
+    @Getter
+    private final Duration timeout;
+
+    private final Set<Handle> running = ConcurrentHashMap.newKeySet();
+
+    @Getter
+    private volatile boolean cancelled;
+
+    public FanOutExecutor(int concurrency, Duration timeout) {
+        this.concurrency = Math.max(1, concurrency);
+        this.timeout = timeout;
+    }
+
+    public static FanOutExecutor ofDefaults() {
+        var concurrency = AppProperties.get().getFanOutConcurrency();
+        var timeout = AppProperties.get().getFanOutTimeout();
+        return new FanOutExecutor(
+                concurrency > 0 ? concurrency : DEFAULT_CONCURRENCY,
+                timeout > 0 ? Duration.ofSeconds(timeout) : null);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        running.forEach(Handle::cancel);
+    }
+
+    public <T> void runAll(List<T> targets, Task<T> task) {
+        // Only spawn a thread once a slot is free, so the number of threads stays bounded as well
+        var semaphore = new Semaphore(concurrency);
+        var threads = new ArrayList<Thread>();
+        for (var target : targets) {
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException e) {
+                cancel();
+                break;
+            }
+
+            if (cancelled) {
+                semaphore.release();
+                break;
+            }
+
+            var handle = new Handle();
+            running.add(handle);
+            threads.add(ThreadHelper.runAsync(() -> {
+                try {
+                    if (timeout != null) {
+                        GlobalTimer.delayAsync(
+                                () -> {
+                                    if (running.contains(handle)) {
+                                        handle.timedOut = true;
+                                        handle.cancel();
+                                    }
+                                },
+                                timeout);
+                    }
+                    task.run(target, handle);
+                } catch (Throwable t) {
+                    // Failures caused by killing the task are expected
+                    if (!handle.isCancelled()) {
+                        ErrorEventFactory.fromThrowable(t).handle();
+                    }
+                } finally {
+                    running.remove(handle);
+                    semaphore.release();
+                }
+            }));
+        }
+
+        for (var thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                cancel();
+            }
+        }
+    }
+
+    public interface Task<T> {
+
+        void run(T target, Handle handle) throws Exception;
+    }
+
+    public static class Handle {
+
+        private final List<Runnable> cancelListeners = new CopyOnWriteArrayList<>();
+
+        @Getter
+        private volatile boolean cancelled;
+
+        @Getter
+        private volatile boolean timedOut;
+
+        public void onCancel(Runnable r) {
+            cancelListeners.add(r);
+            if (cancelled) {
+                r.run();
+            }
+        }
+
+        private void cancel() {
+            if (cancelled) {
+                return;
+            }
+
+            cancelled = true;
+            for (var listener : cancelListeners) {
+                try {
+                    listener.run();
+                } catch (Throwable t) {
+                    ErrorEventFactory.fromThrowable(t).omit().expected().handle();
+                }
+            }
+        }
+    }
+}
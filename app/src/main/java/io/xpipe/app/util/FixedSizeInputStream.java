@@ -1,7 +1,10 @@
 package io.xpipe.app.util;
 
+import lombok.NonNull;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 public class FixedSizeInputStream extends SimpleFilterInputStream {
 
@@ -28,8 +31,31 @@ public class FixedSizeInputStream extends SimpleFilterInputStream {
         }
     }
 
+    @Override
+    public int read(byte @NonNull [] b, int off, int len) throws IOException {
+        if (count >= size) {
+            return -1;
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        var toRead = (int) Math.min(len, size - count);
+        var read = in.read(b, off, toRead);
+        if (read == -1) {
+            // Pad with zeroes like the single byte read
+            Arrays.fill(b, off, off + toRead, (byte) 0);
+            count += toRead;
+            return toRead;
+        }
+
+        count += read;
+        return read;
+    }
+
     @Override
     public int available() {
-        return (int) (size - count);
+        return (int) Math.min(Integer.MAX_VALUE, size - count);
     }
 }
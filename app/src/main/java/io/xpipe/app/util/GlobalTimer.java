@@ -2,97 +2,195 @@ package io.xpipe.app.util;
 
 import io.xpipe.app.issue.ErrorEventFactory;
 
+import lombok.Getter;
+
 import java.time.Duration;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
 import java.util.function.Supplier;
 
 public class GlobalTimer {
 
-    private static Timer TIMER;
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+    private static final Set<String> ACTIVE_KEYS = ConcurrentHashMap.newKeySet();
+    private static volatile ScheduledExecutorService EXECUTOR;
 
     public static void init() {
-        TIMER = new Timer("global-timer", true);
+        // The scheduler thread only dispatches the tasks to other threads,
+        // so a slow task can't delay any other timer
+        EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+                r -> ThreadHelper.createPlatformThread("global-timer", true, r));
     }
 
     public static void reset() {
-        if (TIMER == null) {
+        var executor = EXECUTOR;
+        if (executor == null) {
             return;
         }
 
-        TIMER.cancel();
-        TIMER = null;
+        EXECUTOR = null;
+        executor.shutdownNow();
+        ACTIVE_KEYS.clear();
     }
 
-    private static TimerTask createDelayedTask(Duration interval, Supplier<Boolean> s) {
-        return new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    if (!s.get()) {
-                        // Use this approach instead of scheduleAtFixedRate
-                        // to prevent it from being run rapidly in case the timer is trying
-                        // to catch up. For example with system hibernation
-                        TIMER.schedule(createDelayedTask(interval, s), interval.toMillis());
-                    }
-                } catch (IllegalStateException e) {
-                    // The timer might be shutdown already
-                    ErrorEventFactory.fromThrowable(e).omit().expected().handle();
-                } catch (Throwable t) {
-                    ErrorEventFactory.fromThrowable(t).handle();
-                }
-            }
-        };
+    public static List<Stats> getStats() {
+        return STATS.values().stream()
+                .sorted(Comparator.comparing(Stats::getName))
+                .toList();
     }
 
-    private static void schedule(TimerTask task, long delay) {
-        if (TIMER == null) {
-            return;
+    private static boolean schedule(Runnable task, long delay) {
+        var executor = EXECUTOR;
+        if (executor == null) {
+            return false;
         }
 
         try {
-            TIMER.schedule(
-                    new TimerTask() {
-                        @Override
-                        public void run() {
-                            try {
-                                task.run();
-                            } catch (Throwable t) {
-                                ErrorEventFactory.fromThrowable(t).handle();
-                            }
-                        }
-                    },
-                    delay);
-        } catch (IllegalStateException e) {
+            executor.schedule(task, delay, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
             // The timer might be shutdown already
             ErrorEventFactory.fromThrowable(e).omit().expected().handle();
+            return false;
         }
     }
 
+    private static String getCallerName() {
+        return StackWalker.getInstance().walk(frames -> frames.filter(
+                        f -> !f.getClassName().equals(GlobalTimer.class.getName()))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "."
+                        + f.getMethodName())
+                .orElse("unknown"));
+    }
+
+    private static Stats getStats(String name) {
+        return STATS.computeIfAbsent(name, Stats::new);
+    }
+
     public static void scheduleUntil(Duration interval, boolean runInstantly, Supplier<Boolean> s) {
-        var task = createDelayedTask(interval, s);
-        schedule(task, runInstantly ? 0 : interval.toMillis());
+        var task = new Task(getStats(getCallerName()), null, interval, s);
+        task.schedule(runInstantly ? 0 : interval.toMillis());
+    }
+
+    public static boolean scheduleUntil(String key, Duration interval, boolean runInstantly, Supplier<Boolean> s) {
+        // Only one periodic task can be active for a key at the same time
+        if (!ACTIVE_KEYS.add(key)) {
+            return false;
+        }
+
+        var task = new Task(getStats(key), key, interval, s);
+        task.schedule(runInstantly ? 0 : interval.toMillis());
+        return true;
     }
 
     public static void delay(Runnable r, Duration delay) {
-        schedule(
-                new TimerTask() {
-                    @Override
-                    public void run() {
-                        r.run();
-                    }
-                },
-                delay.toMillis());
+        var task = new Task(getStats(getCallerName()), null, null, () -> {
+            r.run();
+            return true;
+        });
+        task.schedule(delay.toMillis());
     }
 
     public static void delayAsync(Runnable r, Duration delay) {
-        schedule(
-                new TimerTask() {
-                    @Override
-                    public void run() {
-                        ThreadHelper.runAsync(r);
-                    }
-                },
-                delay.toMillis());
+        // All tasks are run asynchronously
+        delay(r, delay);
+    }
+
+    private static class Task implements Runnable {
+
+        private final Stats stats;
+        private final String key;
+        private final Duration interval;
+        private final Supplier<Boolean> supplier;
+        private volatile long scheduledAt;
+
+        private Task(Stats stats, String key, Duration interval, Supplier<Boolean> supplier) {
+            this.stats = stats;
+            this.key = key;
+            this.interval = interval;
+            this.supplier = supplier;
+        }
+
+        private void schedule(long delay) {
+            scheduledAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            if (!GlobalTimer.schedule(this, delay)) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (key != null) {
+                ACTIVE_KEYS.remove(key);
+            }
+        }
+
+        @Override
+        public void run() {
+            var lag = Math.max(0, System.nanoTime() - scheduledAt);
+            ThreadHelper.runAsync(() -> execute(lag));
+        }
+
+        private void execute(long lag) {
+            var start = System.nanoTime();
+            var done = true;
+            try {
+                done = supplier.get();
+            } catch (Throwable t) {
+                ErrorEventFactory.fromThrowable(t).handle();
+            } finally {
+                stats.record(lag, System.nanoTime() - start);
+            }
+
+            if (done) {
+                release();
+                return;
+            }
+
+            // Use this approach instead of a fixed rate
+            // to prevent it from being run rapidly in case the timer is trying
+            // to catch up. For example with system hibernation
+            schedule(interval.toMillis());
+        }
+    }
+
+    @Getter
+    public static class Stats {
+
+        private final String name;
+        private long runs;
+        private long totalDuration;
+        private long maxDuration;
+        private long lastDuration;
+        private long maxLag;
+        private long lastLag;
+
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        private synchronized void record(long lag, long duration) {
+            runs++;
+            totalDuration += duration;
+            maxDuration = Math.max(maxDuration, duration);
+            lastDuration = duration;
+            maxLag = Math.max(maxLag, lag);
+            lastLag = lag;
+        }
+
+        public synchronized Duration getAverageDuration() {
+            return Duration.ofNanos(runs > 0 ? totalDuration / runs : 0);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return name + ": " + runs + " runs, avg " + getAverageDuration().toMillis() + "ms, max "
+                    + TimeUnit.NANOSECONDS.toMillis(maxDuration) + "ms, last lag "
+                    + TimeUnit.NANOSECONDS.toMillis(lastLag) + "ms, max lag "
+                    + TimeUnit.NANOSECONDS.toMillis(maxLag) + "ms";
+        }
     }
 }
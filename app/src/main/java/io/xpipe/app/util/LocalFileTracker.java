@@ -16,7 +16,8 @@ public class LocalFileTracker {
             localFiles.add(file);
         }
 
-        GlobalTimer.scheduleUntil(Duration.ofHours(1), false, () -> {
+        // All tracked files are handled by one periodic task
+        GlobalTimer.scheduleUntil("localFileTracker", Duration.ofHours(1), false, () -> {
             synchronized (localFiles) {
                 var copy = new HashSet<>(localFiles);
                 GlobalTimer.delay(
@@ -23,5 +23,11 @@ public class DaemonStatusExchange extends BeaconInterface<DaemonStatusExchange.R
     @Value
     public static class Response {
         String mode;
+        int sessionCount;
+        long sessionHits;
+        long sessionMisses;
+        int shellSessionCount;
+        long shellSessionHits;
+        long shellSessionMisses;
     }
 }
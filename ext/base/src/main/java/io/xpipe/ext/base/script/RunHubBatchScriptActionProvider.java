@@ -28,14 +28,15 @@ public class RunHubBatchScriptActionProvider implements ActionProvider {
         public void executeImpl() throws Exception {
             var list = new ArrayList<CommandDialog.CommandEntry>();
             for (DataStoreEntryRef<ShellStore> ref : refs) {
-                var sc = ref.getStore().getOrStartSession();
-                var script = scriptStore.getStore().assembleScriptChain(sc, false);
-                if (script == null) {
-                    continue;
-                }
-
-                var cmd = sc.command(script);
-                list.add(new CommandDialog.CommandEntry(ref.get().getName(), cmd));
+                list.add(new CommandDialog.CommandEntry(ref.get().getName(), () -> {
+                    var sc = ref.getStore().getOrStartSession();
+                    var script = scriptStore.getStore().assembleScriptChain(sc, false);
+                    if (script == null) {
+                        return null;
+                    }
+
+                    return sc.command(script);
+                }));
             }
             CommandDialog.runMultipleAndShow(list);
         }
@@ -4,6 +4,7 @@ import io.xpipe.app.ext.*;
 import io.xpipe.app.issue.ErrorEventFactory;
 import io.xpipe.app.process.CommandSupport;
 import io.xpipe.app.process.ShellControl;
+import io.xpipe.app.storage.DataStorage;
 import io.xpipe.app.storage.DataStoreEntry;
 import io.xpipe.app.storage.DataStoreEntryRef;
 import io.xpipe.app.util.Validators;
@@ -15,7 +16,9 @@ import lombok.experimental.SuperBuilder;
 import lombok.extern.jackson.Jacksonized;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @JsonTypeName("podmanCmd")
 @SuperBuilder
@@ -52,9 +55,6 @@ public class PodmanCmdStore
         var l = view.container().listContainersAndStates();
         return l.stream()
                 .map(s -> {
-                    boolean running = s.getStatus().startsWith("running")
-                            || s.getStatus().startsWith("up")
-                            || s.getStatus().startsWith("Up");
                     var c = PodmanContainerStore.builder()
                             .cmd(getSelfEntry().ref())
                             .containerName(s.getName())
@@ -63,7 +63,7 @@ public class PodmanCmdStore
                     entry.setStorePersistentState(PodmanContainerStoreState.builder()
                             .containerState(s.getStatus())
                             .imageName(s.getImage())
-                            .running(running)
+                            .running(s.isRunning())
                             .systemdUnit(s.getSystemdUnit())
                             .build());
                     return entry.<PodmanContainerStore>ref();
@@ -71,6 +71,34 @@ public class PodmanCmdStore
                 .toList();
     }
 
+    public Optional<PodmanCommandView.Container.ContainerEntry> refreshContainerStates(ShellControl sc, String name)
+            throws Exception {
+        // Update all sibling containers from one listing instead of querying each container separately
+        var view = new PodmanCommandView(sc).container();
+        var l = view.listContainers();
+        var byName = l.stream()
+                .collect(Collectors.toMap(
+                        PodmanCommandView.Container.ContainerEntry::getName, e -> e, (e1, e2) -> e1));
+        for (var child : DataStorage.get().getStoreChildren(getSelfEntry())) {
+            if (!(child.getStore() instanceof PodmanContainerStore p)) {
+                continue;
+            }
+
+            var found = byName.get(p.getContainerName());
+            var state = p.getState();
+            var newState = found != null
+                    ? state.toBuilder()
+                            .containerState(found.getStatus())
+                            .running(found.isRunning())
+                            .imageName(found.getImage())
+                            .systemdUnit(found.getSystemdUnit())
+                            .build()
+                    : state.toBuilder().containerState("Removed").running(false).build();
+            p.setState(newState);
+        }
+        return Optional.ofNullable(byName.get(name));
+    }
+
     private void updateState(ShellControl host) throws Exception {
         var out = new PodmanCommandView(host).version();
 
@@ -2,13 +2,16 @@ package io.xpipe.ext.system.podman;
 
 import io.xpipe.app.issue.ErrorEventFactory;
 import io.xpipe.app.process.*;
+import io.xpipe.core.JacksonMapper;
 import io.xpipe.core.OsType;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.NonNull;
 import lombok.Value;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -88,12 +91,6 @@ public class PodmanCommandView extends CommandViewBase {
             return command.readStdoutIfPossible().filter(s -> !s.isBlank());
         }
 
-        public String queryState(String container) throws Exception {
-            return build(commandBuilder -> commandBuilder.add(
-                            "ls", "-a", "-f", "name=\"^" + container + "$\"", "--format=\"{{.Status}}\""))
-                    .readStdoutOrThrow();
-        }
-
         @Override
         protected CommandControl build(Consumer<CommandBuilder> builder) {
             return PodmanCommandView.this.build((b) -> {
@@ -118,15 +115,42 @@ public class PodmanCommandView extends CommandViewBase {
                 throw new IllegalStateException("Podman daemon is not running");
             }
 
-            try (var c = build(commandBuilder ->
-                            commandBuilder.add("ls -a --format=\"{{.Names}};{{.Image}};{{.Status}}\""))
+            return listContainers();
+        }
+
+        public List<ContainerEntry> listContainers() throws Exception {
+            // The json output already contains the labels, so no additional inspect call per container is needed
+            try (var c = build(commandBuilder -> commandBuilder.add("ls", "-a", "--format", "json"))
                     .start()) {
                 var output = c.readStdoutOrThrow();
+                var json = JacksonMapper.getDefault().readTree(output);
                 var l = new ArrayList<ContainerEntry>();
-                for (String s : output.lines().toList()) {
-                    var systemd =
-                            queryLabel(s.split(";")[0], "PODMAN_SYSTEMD_UNIT").orElse(null);
-                    l.add(new ContainerEntry(s.split(";")[0], s.split(";")[1], s.split(";")[2], systemd));
+                if (json == null || !json.isArray()) {
+                    return l;
+                }
+
+                for (JsonNode jsonNode : json) {
+                    var names = jsonNode.required("Names");
+                    var name = names.isArray() ? names.path(0).asText(null) : names.asText(null);
+                    if (name == null) {
+                        continue;
+                    }
+
+                    var image = jsonNode.path("Image").asText("");
+                    var state = jsonNode.path("State").asText("");
+                    // Older versions don't include the human-readable status
+                    var status = jsonNode.path("Status").asText("");
+                    if (status.isBlank()) {
+                        status = state;
+                    }
+                    var running = state.equalsIgnoreCase("running")
+                            || status.toLowerCase(Locale.ROOT).startsWith("up");
+                    var labels = jsonNode.path("Labels");
+                    var systemd = labels.path("PODMAN_SYSTEMD_UNIT").asText(null);
+                    if (systemd != null && systemd.isBlank()) {
+                        systemd = null;
+                    }
+                    l.add(new ContainerEntry(name, image, status, running, systemd));
                 }
                 return l;
             }
@@ -207,6 +231,7 @@ public class PodmanCommandView extends CommandViewBase {
             String name;
             String image;
             String status;
+            boolean running;
             String systemdUnit;
         }
     }
@@ -172,19 +172,17 @@ public class PodmanContainerStore
     }
 
     private boolean refreshContainerState(ShellControl sc) throws Exception {
-        var state = getState();
-        var view = new PodmanCommandView(sc).container();
-        var displayState = view.queryState(containerName);
-        if (displayState.isEmpty()) {
-            var newState =
-                    state.toBuilder().containerState("Removed").running(false).build();
-            setState(newState);
+        // This also updates the state of all other containers of the same host
+        var found = getCmd().getStore().refreshContainerStates(sc, containerName);
+        if (found.isEmpty()) {
+            setState(getState().toBuilder().containerState("Removed").running(false).build());
             return false;
         }
 
-        var running = displayState.startsWith("Up");
-        var newState =
-                state.toBuilder().containerState(displayState).running(running).build();
+        var newState = getState().toBuilder()
+                .containerState(found.get().getStatus())
+                .running(found.get().isRunning())
+                .build();
         setState(newState);
         return true;
     }